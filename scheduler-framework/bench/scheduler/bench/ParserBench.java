@@ -0,0 +1,52 @@
+package scheduler.bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import scheduler.*;
+
+/**
+ * Parsing of graph and resource files.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBench {
+
+	@State(Scope.Benchmark)
+	public static class GraphFile {
+		@Param({ "lectureExample.dot", "FIR-main-75-264.dot", "SHA256Digest-processBlock-119-1722.dot", "serpent.dot",
+				"CubeHash512Digest-sixteenRounds-2-2891.dot" })
+		public String graph;
+	}
+
+	@State(Scope.Benchmark)
+	public static class ResourceFile {
+		@Param({ "heterogenous_4res", "homogenous_16res" })
+		public String resources;
+	}
+
+	@Benchmark
+	public Graph dotReader(GraphFile f) {
+		return new Dot_reader(false).parse("graphs/" + f.graph);
+	}
+
+	@Benchmark
+	public Graph graphCache(GraphFile f) {
+		return GraphCache.load("graphs/" + f.graph, false);
+	}
+
+	/**
+	 * RC.read() is RC.parse() without printing the parsed constraints.
+	 */
+	@Benchmark
+	public RC rcParse(ResourceFile f) throws IOException {
+		RC rc = new RC();
+		rc.read("resources/" + f.resources);
+		return rc;
+	}
+}
@@ -0,0 +1,50 @@
+package scheduler.bench;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import scheduler.*;
+
+/**
+ * Evaluation and output of an ASAP schedule.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScheduleBench {
+
+	@Param({ "lectureExample.dot", "FIR-main-75-264.dot", "SHA256Digest-processBlock-119-1722.dot", "serpent.dot",
+			"CubeHash512Digest-sixteenRounds-2-2891.dot" })
+	public String graph;
+
+	private Schedule schedule;
+	private File out;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		Graph g = new Dot_reader(false).parse("graphs/" + graph);
+		PrintStream stdout = System.out;
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+		schedule = new ASAP().schedule(g);
+		System.setOut(stdout);
+		out = File.createTempFile("schedule", ".dot");
+		out.deleteOnExit();
+	}
+
+	@Benchmark
+	public Double cost() {
+		return schedule.cost();
+	}
+
+	@Benchmark
+	public void draw() {
+		schedule.draw(out.getPath());
+	}
+}
@@ -0,0 +1,82 @@
+package scheduler.bench;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import scheduler.*;
+
+/**
+ * The schedulers on a parsed graph. The latency bound of ALAP_Fixed and FDS is the critical
+ * path length of the graph. Diagnostic output of the schedulers goes to a null stream, thus
+ * it is formatted but not written.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SchedulerBench {
+
+	@Param({ "lectureExample.dot", "FIR-main-75-264.dot", "SHA256Digest-processBlock-119-1722.dot", "serpent.dot",
+			"CubeHash512Digest-sixteenRounds-2-2891.dot" })
+	public String graph;
+
+	private Graph g;
+	private int lmax;
+	private PrintStream stdout;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		g = new Dot_reader(false).parse("graphs/" + graph);
+		lmax = g.analyze(0).criticalPathLength();
+		stdout = System.out;
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		System.setOut(stdout);
+	}
+
+	@Benchmark
+	public Schedule asap() {
+		return new ASAP().schedule(g);
+	}
+
+	@Benchmark
+	public Schedule alap() {
+		return new ALAP().schedule(g);
+	}
+
+	@Benchmark
+	public Schedule asapFixed() {
+		return new ASAP_Fixed().schedule(g, new Schedule());
+	}
+
+	@Benchmark
+	public Schedule alapFixed() {
+		return new ALAP_Fixed(lmax).schedule(g, new Schedule());
+	}
+
+	@State(Scope.Benchmark)
+	public static class Resources {
+		@Param({ "heterogenous_4res", "homogenous_16res" })
+		public String resources;
+		RC rc;
+
+		@Setup(Level.Trial)
+		public void setUp() throws Exception {
+			rc = new RC();
+			rc.read("resources/" + resources);
+		}
+	}
+
+	@Benchmark
+	public Schedule fds(Resources r) {
+		return new FDS(r.rc, lmax).schedule(g);
+	}
+}
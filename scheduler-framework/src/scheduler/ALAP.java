@@ -1,70 +1,67 @@
 package scheduler;
 
-import java.util.HashMap;
-import java.util.Map;
-
 public class ALAP extends Scheduler {
-	
+
 	/**
 	 * Maximum schedule length
 	 */
 	protected final int lmax;
-	
+
 	public ALAP() {
 		lmax = 0;
 	}
 	public ALAP(int lmax) {
 		this.lmax = lmax-1;
 	}
-	
+
+	/**
+	 * Schedule every node as late as its successors allow. The nodes are planned in wavefronts
+	 * from the leaves backwards, like ASAP. Without a latency bound the schedule is shifted to
+	 * start at 0.
+	 * @param sg - the dependency graph
+	 * @return the ALAP schedule, nodes on a cycle are not scheduled
+	 */
 	public Schedule schedule(final Graph sg) {
-		Map<Node, Interval> queue = new HashMap<Node, Interval>();
-		Map<Node, Interval> qq;
-		Map<Node, Interval> min_queue = new HashMap<Node, Interval>();
+		Metrics m = newMetrics();
+		GraphIndex gi = new GraphIndex(sg);
+		int n = gi.size();
 		Schedule schedule = new Schedule();
-		Integer min = lmax;
-		Graph g = sg;
+		int min = lmax;
 
-		for (Node nd : g)
-			if (nd.leaf())
-				queue.put(nd, new Interval(lmax + 1 - nd.getDelay(), lmax));
-		if(queue.size() == 0)
-			System.out.println("No leaf in Graph found. Empty or cyclic graph");
-		
+		int[] end = new int[n];				// latest end time + 1
+		int[] unplanned = new int[n];		// number of unscheduled successors
+		int[] wave = new int[n];			// the wavefronts one after another
+		int head = 0, tail = 0;
+		for (int v = 0; v < n; v++) {
+			end[v] = lmax + 1;
+			unplanned[v] = gi.succEnd(v) - gi.succBegin(v);
+			if (unplanned[v] == 0)
+				wave[tail++] = v;
+		}
+		if (tail == 0)
+			Trace.fail(Trace.Component.ALAP, "No leaf in Graph found. Empty or cyclic graph");
 
-		while (queue.size() > 0) {
-			qq = new HashMap<Node, Interval>();
+		while (head < tail) {
+			int last = tail;
+			m.inc(Metrics.Counter.ITERATIONS);
 
-			for (Node nd : queue.keySet()) {
-				Interval slot = queue.get(nd);
-				if (slot.lbound < min)
-					min = slot.lbound;
+			for (; head < last; head++) {
+				int v = wave[head];
+				int begin = end[v] - gi.delay(v);
+				min = Math.min(min, begin);
+				schedule.add(gi.node(v), new Interval(begin, end[v] - 1));
+				m.inc(Metrics.Counter.NODES_VISITED);
+				m.add(Metrics.Counter.EDGES_VISITED, gi.predEnd(v) - gi.predBegin(v));
 
-				schedule.add(nd, slot);
-				for (Node l : nd.predecessors()) {
-					g.handle(l, nd);
-					Interval ii = min_queue.get(l);
-					if (ii == null || slot.lbound <= ii.ubound) {
-						ii = new Interval(slot.lbound-l.getDelay(), slot.lbound-1);
-						min_queue.put(l, ii);
-					}
-					if (!l.bottom())
-						continue;
-					if ((queue.get(l) == null)) {
-						if (qq.get(l) == null) {
-							qq.put(l, ii);
-						} else if (qq.get(l).ubound >= slot.lbound) {
-							qq.put(l, ii);
-						}
-					} else if (queue.get(l).ubound >= slot.lbound) {
-						qq.put(l, ii);
-					}
+				for (int k = gi.predBegin(v); k < gi.predEnd(v); k++) {
+					int p = gi.pred(k);
+					end[p] = Math.min(end[p], begin);
+					if (--unplanned[p] == 0)
+						wave[tail++] = p;
 				}
 			}
-			queue = qq;
 		}
-		g.reset();
-	
+
 		if (lmax == 0)
 			return schedule.shift(-(min));
 		return schedule;
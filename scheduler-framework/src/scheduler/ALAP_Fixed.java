@@ -1,88 +1,105 @@
 package scheduler;
 
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.Set;
-
 public class ALAP_Fixed extends ALAP {
-	
+
 	public ALAP_Fixed() {
 		super();
 	}
 	public ALAP_Fixed(int lmax) {
 		super(lmax);
 	}
-	
+
+	/**
+	 * Schedule all nodes missing in the partial schedule as late as possible. A node is taken
+	 * from a ready list once all its successors are scheduled, thus the scheduler runs in
+	 * O(V+E). Like ALAP only edges within one iteration are taken into account.
+	 * @param graph - the dependency graph
+	 * @param partialSchedule - schedule of the fixed nodes, it is not modified
+	 * @return the completed schedule, null iff the fixed nodes do not allow a legal schedule
+	 */
 	public Schedule schedule(final Graph graph, final Schedule partialSchedule) {
-		Set<Node> queue = new HashSet<Node>();
+		Metrics m = newMetrics();
+		GraphIndex gi = new GraphIndex(graph);
+		int n = gi.size();
 		Schedule schedule = partialSchedule.clone();
+		m.inc(Metrics.Counter.SCHEDULE_CLONES);
 		Integer min = lmax;
 
-		// schedule leaf nodes and add unscheduled nodes to queue
-		for (Node node : graph) {
-			if (!schedule.getNodes().keySet().contains(node)) {
-				if (node.leaf()) {
-					// add unscheduled leaf nodes to schedule
-					schedule.add(node, new Interval(lmax - node.getDelay() + 1, lmax));
-					min = Math.min(min, lmax - node.getDelay() + 1);
-				} else {
-					// add all non-leaf unscheduled nodes to queue
-					queue.add(node);
-				}
+		int[] begin = new int[n];
+		boolean[] fixed = new boolean[n];
+		int[] unplanned = new int[n];		// number of unscheduled successors
+		int[] ready = new int[n];
+		int head = 0, tail = 0, planned = 0;
+
+		// fixed nodes are not counted
+		for (int v = 0; v < n; v++) {
+			Interval slot = schedule.slot(gi.node(v));
+			if (slot != null) {
+				fixed[v] = true;
+				begin[v] = slot.lbound;
+				planned++;
 			}
 		}
-		
-		while (queue.size() > 0) {
-			
-			// Choose node with all successors scheduled
-			Node candidate = null;
-			Iterator<Node> iter = queue.iterator();
-			while (candidate == null && iter.hasNext()) {
-				Node node = iter.next();
-				boolean succUnplanned = false;
-				for (Node successor : node.allSuccessors().keySet()) {
-					if (!schedule.containsNode(successor)) {
-						succUnplanned = true;
-						break;
-					}
-				}
-				candidate = succUnplanned ? null : node;
-			}
-			if (candidate == null) {
-				System.err.println("Found no node with all successors planned. Cyclic dependencies?");
-				return null;
+		// leaf nodes and nodes in front of fixed nodes only are ready right away
+		for (int v = 0; v < n; v++) {
+			if (fixed[v])
+				continue;
+			for (int k = gi.succBegin(v); k < gi.succEnd(v); k++)
+				if (!fixed[gi.succ(k)])
+					unplanned[v]++;
+			if (unplanned[v] == 0)
+				ready[tail++] = v;
+		}
+
+		while (head < tail) {
+			int candidate = ready[head++];
+			planned++;
+			m.inc(Metrics.Counter.NODES_VISITED);
+			m.add(Metrics.Counter.EDGES_VISITED, gi.predEnd(candidate) - gi.predBegin(candidate)
+					+ gi.succEnd(candidate) - gi.succBegin(candidate));
+
+			// Determine latest possible ending time, leaf nodes end at lmax
+			int minSuccBegin = lmax + 1;
+			if (gi.succBegin(candidate) < gi.succEnd(candidate)) {
+				minSuccBegin = Integer.MAX_VALUE;
+				for (int k = gi.succBegin(candidate); k < gi.succEnd(candidate); k++)
+					minSuccBegin = Math.min(minSuccBegin, begin[gi.succ(k)]);
 			}
-			
-			// Determine latest possible ending time
-			int minSuccBegin = Integer.MAX_VALUE;
-			for (Node successor : candidate.allSuccessors().keySet()) {
-				int succBegin = schedule.getNodes().get(successor).lbound;
-				if (succBegin < minSuccBegin) {
-					minSuccBegin = succBegin;
+			int lo = minSuccBegin - gi.delay(candidate), hi = minSuccBegin - 1;
+
+			// Check legality of found slot with predecessors (data dependencies). Only fixed
+			// predecessors can be scheduled already.
+			for (int k = gi.predBegin(candidate); k < gi.predEnd(candidate); k++) {
+				int predecessor = gi.pred(k);
+				if (!fixed[predecessor])
+					continue;
+				int predEnd = schedule.slot(gi.node(predecessor)).ubound;
+				if (predEnd >= lo) {
+					Trace.log(Trace.Component.ALAP, Trace.Level.DEBUG, "%s at [%d:%d], predecessor %s ends at %d",
+							gi.node(candidate), lo, hi, gi.node(predecessor), predEnd);
+					Trace.fail(Trace.Component.ALAP, "Found critical timing problem. No legal schedule possible with given partial schedule.");
+					return null;
 				}
 			}
-			Interval slot = new Interval(minSuccBegin - candidate.getDelay(), minSuccBegin - 1);
-			
-			// Check legality of found slot with predecessors (data dependencies)
-			for (Node predecessor : candidate.allPredecessors().keySet()) {
-				if (schedule.containsNode(predecessor)) {
-					int predEnd = schedule.getNodes().get(predecessor).ubound;
-					if (predEnd >= slot.lbound) {
-						System.out.println(slot.toString());
-						System.out.println(predEnd);
-						System.err.println("Found critical timing problem. No legal schedule possible with given partial schedule.");
-						return null;
-					}
-				}
+
+			// Schedule node
+			schedule.add(gi.node(candidate), new Interval(lo, hi));
+			begin[candidate] = lo;
+			min = Math.min(min, lo);
+
+			// Release the predecessors
+			for (int k = gi.predBegin(candidate); k < gi.predEnd(candidate); k++) {
+				int predecessor = gi.pred(k);
+				if (!fixed[predecessor] && --unplanned[predecessor] == 0)
+					ready[tail++] = predecessor;
 			}
-			
-			// Schedule node and remove it from the queue
-			schedule.add(candidate, slot);
-			min = Math.min(min, slot.lbound);
-			queue.remove(candidate);
-			
 		}
-		
+
+		if (planned < n) {
+			Trace.fail(Trace.Component.ALAP, "Found no node with all successors planned. Cyclic dependencies?");
+			return null;
+		}
+
 		graph.reset();
 		if (lmax == 0) {
 			return schedule.shift(-min);
@@ -1,68 +1,63 @@
 package scheduler;
 
-import java.util.HashMap;
-import java.util.Map;
-
 public class ASAP extends Scheduler {
-	
+
+	/**
+	 * Schedule every node as soon as its predecessors have finished. The nodes are planned in
+	 * wavefronts: the roots first, then the nodes whose last predecessor was planned in the
+	 * previous wavefront. Start times are kept in an int array by node index, an Interval is
+	 * only created once per node for the schedule.
+	 * @param graph - the dependency graph
+	 * @return the ASAP schedule, nodes on a cycle are not scheduled
+	 */
 	public Schedule schedule(final Graph graph) {
-		Map<Node, Interval> queue = new HashMap<Node, Interval>();
-		Map<Node, Interval> newQueue;
-		Map<Node, Interval> minSlot = new HashMap<Node, Interval>();
+		Metrics m = newMetrics();
+		GraphIndex gi = new GraphIndex(graph);
+		int n = gi.size();
 		Schedule schedule = new Schedule();
-	
-		for (Node graphNode : graph) {
-			if (graphNode.root()) {
-				queue.put(graphNode, new Interval(0, graphNode.getDelay() - 1));
-			}
+
+		int[] start = new int[n];			// earliest start time
+		int[] unplanned = new int[n];		// number of unscheduled predecessors
+		int[] wave = new int[n];			// the wavefronts one after another
+		int head = 0, tail = 0;
+		for (int v = 0; v < n; v++) {
+			unplanned[v] = gi.predEnd(v) - gi.predBegin(v);
+			if (unplanned[v] == 0)
+				wave[tail++] = v;
 		}
-		if (queue.size() == 0) {
-			System.out.println("No root in Graph found. Empty or cyclic graph");
+		if (tail == 0) {
+			Trace.fail(Trace.Component.ASAP, "No root in Graph found. Empty or cyclic graph");
 		}
 
-		while (queue.size() > 0) {
-			System.out.println("Nodes in Queue: ");
-			for (Node queuedNode : queue.keySet()) {
-				System.out.print(queuedNode.id + " ");
-				System.out.print("[" + queue.get(queuedNode).lbound + ", " + queue.get(queuedNode).ubound + "); ");
+		while (head < tail) {
+			int end = tail;
+			m.inc(Metrics.Counter.ITERATIONS);
+			if (Trace.on(Trace.Component.ASAP, Trace.Level.DEBUG)) {
+				StringBuilder sb = new StringBuilder();
+				for (int w = head; w < end; w++) {
+					int v = wave[w];
+					sb.append(gi.node(v).id).append(" [").append(start[v]).append(':')
+							.append(start[v] + gi.delay(v) - 1).append("]; ");
+				}
+				Trace.log(Trace.Component.ASAP, Trace.Level.DEBUG, "Nodes in Queue: %s", sb);
 			}
-			System.out.println();
-			
-			newQueue = new HashMap<Node, Interval>();
-			for (Node queuedNode : queue.keySet()) {
-				Interval slot = queue.get(queuedNode);
-				schedule.add(queuedNode, slot);
-	
-				for (Node successorNode : queuedNode.successors()) {
-					graph.handle(queuedNode, successorNode);
-	
-					Interval successorSlot = minSlot.get(successorNode);
-					if (successorSlot == null || successorSlot.lbound.compareTo(slot.ubound) <= 0) {
-						// found an earlier slot
-						minSlot.put(successorNode,
-								new Interval(slot.ubound + 1, slot.ubound + successorNode.getDelay()));
-					}
 
-					if (!successorNode.top()) {
-						continue;
-					}
-					successorSlot = minSlot.get(successorNode);
-					if (queue.get(successorNode) == null) {
-						if (newQueue.get(successorNode) == null) {
-							newQueue.put(successorNode, successorSlot);
-						}
-						else if (newQueue.get(successorNode).lbound <= slot.ubound) {
-							newQueue.put(successorNode, successorSlot);
-						}
-					} else if (queue.get(successorNode).lbound <= slot.ubound) {
-						newQueue.put(successorNode, successorSlot);
-					}
+			for (; head < end; head++) {
+				int v = wave[head];
+				int finish = start[v] + gi.delay(v);
+				schedule.add(gi.node(v), new Interval(start[v], finish - 1));
+				m.inc(Metrics.Counter.NODES_VISITED);
+				m.add(Metrics.Counter.EDGES_VISITED, gi.succEnd(v) - gi.succBegin(v));
+
+				for (int k = gi.succBegin(v); k < gi.succEnd(v); k++) {
+					int s = gi.succ(k);
+					start[s] = Math.max(start[s], finish);
+					if (--unplanned[s] == 0)
+						wave[tail++] = s;
 				}
 			}
-			queue = newQueue;
 		}
-		graph.reset();
-	
+
 		return schedule;
 	}
 }
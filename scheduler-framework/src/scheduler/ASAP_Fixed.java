@@ -1,76 +1,91 @@
 package scheduler;
 
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.Set;
-
 public class ASAP_Fixed extends ASAP {
-	
+
+	/**
+	 * Schedule all nodes missing in the partial schedule as soon as possible. A node is taken
+	 * from a ready list once all its predecessors are scheduled, thus the scheduler runs in
+	 * O(V+E). Like ASAP only edges within one iteration are taken into account.
+	 * @param graph - the dependency graph
+	 * @param partialSchedule - schedule of the fixed nodes, it is not modified
+	 * @return the completed schedule, null iff the fixed nodes do not allow a legal schedule
+	 */
 	public Schedule schedule(final Graph graph, final Schedule partialSchedule) {
-		Set<Node> queue = new HashSet<Node>();
+		Metrics m = newMetrics();
+		GraphIndex gi = new GraphIndex(graph);
+		int n = gi.size();
 		Schedule schedule = partialSchedule.clone();
-		
-		// schedule root nodes and add unscheduled nodes to queue
-		for (Node node : graph) {
-			if (!schedule.getNodes().keySet().contains(node)) {
-				if (node.root()) {
-					// add unscheduled root nodes to schedule
-					schedule.add(node, new Interval(0, node.getDelay() - 1));
-				} else {
-					// add all non-root unscheduled nodes to queue
-					queue.add(node);
-				}
+		m.inc(Metrics.Counter.SCHEDULE_CLONES);
+
+		int[] end = new int[n];
+		boolean[] fixed = new boolean[n];
+		int[] unplanned = new int[n];		// number of unscheduled predecessors
+		int[] ready = new int[n];
+		int head = 0, tail = 0, planned = 0;
+
+		// fixed nodes are not counted
+		for (int v = 0; v < n; v++) {
+			Interval slot = schedule.slot(gi.node(v));
+			if (slot != null) {
+				fixed[v] = true;
+				end[v] = slot.ubound;
+				planned++;
 			}
 		}
-		
-		while (queue.size() > 0) {
-			
-			// Choose node with all predecessors scheduled
-			Node candidate = null;
-			Iterator<Node> iter = queue.iterator();
-			while (candidate == null && iter.hasNext()) {
-				Node node = iter.next();
-				boolean predUnplanned = false;
-				for (Node predecessor : node.allPredecessors().keySet()) {
-					if (!schedule.containsNode(predecessor)) {
-						predUnplanned = true;
-						break;
-					}
-				}
-				candidate = predUnplanned ? null : node;
-			}
-			if (candidate == null) {
-				System.err.println("Found no node with all predecessors planned. Cyclic dependencies?");
-				return null;
+		// root nodes and nodes behind fixed nodes only are ready right away
+		for (int v = 0; v < n; v++) {
+			if (fixed[v])
+				continue;
+			for (int k = gi.predBegin(v); k < gi.predEnd(v); k++)
+				if (!fixed[gi.pred(k)])
+					unplanned[v]++;
+			if (unplanned[v] == 0)
+				ready[tail++] = v;
+		}
+
+		while (head < tail) {
+			int candidate = ready[head++];
+			planned++;
+			m.inc(Metrics.Counter.NODES_VISITED);
+			m.add(Metrics.Counter.EDGES_VISITED, gi.predEnd(candidate) - gi.predBegin(candidate)
+					+ gi.succEnd(candidate) - gi.succBegin(candidate));
+
+			// Determine earliest possible starting time, root nodes start at 0
+			int maxPredEnd = -1;
+			if (gi.predBegin(candidate) < gi.predEnd(candidate)) {
+				maxPredEnd = Integer.MIN_VALUE;
+				for (int k = gi.predBegin(candidate); k < gi.predEnd(candidate); k++)
+					maxPredEnd = Math.max(maxPredEnd, end[gi.pred(k)]);
 			}
-			
-			// Determine earliest possible starting time
-			int maxPredEnd = Integer.MIN_VALUE;
-			for (Node predecessor : candidate.allPredecessors().keySet()) {
-				int predEnd = schedule.getNodes().get(predecessor).ubound;
-				if (predEnd > maxPredEnd) {
-					maxPredEnd = predEnd; 
+			int lo = maxPredEnd + 1, hi = maxPredEnd + gi.delay(candidate);
+
+			// Check legality of found slot with successors (data dependencies). Only fixed
+			// successors can be scheduled already.
+			for (int k = gi.succBegin(candidate); k < gi.succEnd(candidate); k++) {
+				int successor = gi.succ(k);
+				if (fixed[successor] && schedule.slot(gi.node(successor)).lbound <= hi) {
+					Trace.fail(Trace.Component.ASAP, "Found critical timing problem. No legal schedule possible with given partial schedule.");
+					return null;
 				}
 			}
-			Interval slot = new Interval(maxPredEnd + 1, maxPredEnd + candidate.getDelay());
-			
-			// Check legality of found slot with successors (data dependencies)
-			for (Node successor : candidate.allSuccessors().keySet()) {
-				if (schedule.containsNode(successor)) {
-					int succBegin = schedule.getNodes().get(successor).lbound;
-					if (succBegin <= slot.ubound) {
-						System.out.println("Found critical timing problem. No legal schedule possible with given partial schedule.");
-						return null;
-					}
-				}
+
+			// Schedule node
+			schedule.add(gi.node(candidate), new Interval(lo, hi));
+			end[candidate] = hi;
+
+			// Release the successors
+			for (int k = gi.succBegin(candidate); k < gi.succEnd(candidate); k++) {
+				int successor = gi.succ(k);
+				if (!fixed[successor] && --unplanned[successor] == 0)
+					ready[tail++] = successor;
 			}
-			
-			// Schedule node and remove it from the queue
-			schedule.add(candidate, slot);
-			queue.remove(candidate);
-			
 		}
-		
+
+		if (planned < n) {
+			Trace.fail(Trace.Component.ASAP, "Found no node with all predecessors planned. Cyclic dependencies?");
+			return null;
+		}
+
 		graph.reset();
 		return schedule;
 	}
@@ -0,0 +1,395 @@
+package scheduler;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Batch mode: schedules the cross product of graphs, resource files, schedulers and latency
+ * bounds on a bounded worker pool and writes one CSV or JSON line per run.
+ * <p>
+ * Usage: scheduler batch [options]
+ * <pre>
+ * -g glob    graph files (default graphs/*.dot), may be repeated
+ * -r glob    resource files (default: none), may be repeated
+ * -a glob    scheduler names, see Schedulers (default *), may be repeated
+ * -l list    latency bounds, comma separated numbers or from:to[:step] ranges. 0 is the
+ *            critical path length of each graph (default 0)
+ * -j n       number of worker threads (default: number of processors)
+ * -f format  csv or json (default csv)
+ * -o file    output file (default stdout)
+ * -b         read loop-carried edges (needed by IMS)
+ * -v         keep the diagnostic output of the schedulers
+ * -m         collect the phase timers and counters of each run (see Metrics), json only
+ * -t spec    trace levels, e.g. FDS:DEBUG or *:INFO (see Trace), the trace is dumped to
+ *            stderr after the last run
+ * </pre>
+ * Besides the length and the cost each run reports the number of functional units of a
+ * left-edge binding of the schedule to the resources (see Binding).
+ * A run that fails or throws is reported with its error, the other runs go on. Results are
+ * written in the order of the cross product as soon as they are available.
+ */
+public class Batch {
+	private final List<String> graphs = new ArrayList<String>();
+	private final List<String> resources = new ArrayList<String>();
+	private final List<String> algorithms = new ArrayList<String>();
+	private final List<Integer> bounds = new ArrayList<Integer>();
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private boolean json = false;
+	private boolean verbose = false;
+	private boolean backEdges = false;
+	private boolean trace = false;
+	private String output = null;
+
+	/**
+	 * Result of a single run
+	 */
+	static final class Run {
+		final String graph, resources, algorithm;
+		int lmax;
+		String status = "ok", error = "";
+		int length;
+		double cost;
+		int units;
+		Map<RT, Double> costs = Collections.emptyMap();
+		double millis;
+		String metrics;
+
+		Run(String graph, String resources, String algorithm, int lmax) {
+			this.graph = graph;
+			this.resources = resources;
+			this.algorithm = algorithm;
+			this.lmax = lmax;
+		}
+
+		void fail(String status, Throwable e) {
+			this.status = status;
+			error = e.getMessage() == null ? e.getClass().getSimpleName() : e.getClass().getSimpleName() + ": " + e.getMessage();
+		}
+	}
+
+	/**
+	 * @param args - the options, see above
+	 * @throws IllegalArgumentException if an option is unknown or illegal
+	 */
+	public Batch(String... args) {
+		options(args);
+	}
+
+	public static void main(String[] args) {
+		Batch batch = null;
+		try {
+			batch = new Batch(args);
+		} catch (IllegalArgumentException e) {
+			System.err.printf("FATAL: %s%n", e.getMessage());
+			System.exit(-1);
+		}
+		try {
+			batch.run();
+		} catch (IOException e) {
+			System.err.printf("FATAL: %s%n", e.getMessage());
+			System.exit(-1);
+		}
+	}
+
+	private void options(String[] args) {
+		List<String> graphPatterns = new ArrayList<String>();
+		List<String> resourcePatterns = new ArrayList<String>();
+		List<String> algorithmPatterns = new ArrayList<String>();
+		String latencies = "0";
+		for (int i = 0; i < args.length; i++) {
+			String opt = args[i];
+			if (opt.equals("-v") || opt.equals("-b") || opt.equals("-m")) {
+				verbose |= opt.equals("-v");
+				backEdges |= opt.equals("-b");
+				if (opt.equals("-m"))
+					Metrics.setEnabled(true);
+				continue;
+			}
+			if (i + 1 >= args.length)
+				throw new IllegalArgumentException("Missing argument of " + opt);
+			String arg = args[++i];
+			switch (opt) {
+			case "-g": graphPatterns.add(arg); break;
+			case "-r": resourcePatterns.add(arg); break;
+			case "-a": algorithmPatterns.add(arg); break;
+			case "-l": latencies = arg; break;
+			case "-j": threads = Integer.parseInt(arg); break;
+			case "-o": output = arg; break;
+			case "-t": Trace.configure(arg); trace = true; break;
+			case "-f":
+				if (!arg.equals("csv") && !arg.equals("json"))
+					throw new IllegalArgumentException("Unknown format " + arg);
+				json = arg.equals("json");
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown option " + opt);
+			}
+		}
+		if (graphPatterns.isEmpty())
+			graphPatterns.add("graphs/*.dot");
+		if (algorithmPatterns.isEmpty())
+			algorithmPatterns.add("*");
+
+		for (String p : graphPatterns)
+			graphs.addAll(glob(p));
+		for (String p : resourcePatterns)
+			resources.addAll(glob(p));
+		if (resources.isEmpty())
+			resources.add(null);
+		for (String p : algorithmPatterns) {
+			PathMatcher m = FileSystems.getDefault().getPathMatcher("glob:" + p);
+			for (String name : Schedulers.names())
+				if (m.matches(Paths.get(name)) && !algorithms.contains(name))
+					algorithms.add(name);
+		}
+		for (String l : latencies.split(",")) {
+			String[] r = l.trim().split(":");
+			int from = Integer.parseInt(r[0]);
+			int to = r.length > 1 ? Integer.parseInt(r[1]) : from;
+			int step = r.length > 2 ? Integer.parseInt(r[2]) : 1;
+			if (step <= 0)
+				throw new IllegalArgumentException("Illegal latency range " + l);
+			for (int b = from; b <= to; b += step)
+				bounds.add(b);
+		}
+		if (graphs.isEmpty())
+			throw new IllegalArgumentException("No graph matches " + graphPatterns);
+		if (algorithms.isEmpty())
+			throw new IllegalArgumentException("No scheduler matches " + algorithmPatterns + ", known are " + Schedulers.names());
+		if (threads < 1)
+			throw new IllegalArgumentException("Illegal number of threads " + threads);
+	}
+
+	/**
+	 * Expand a glob pattern to the matching files, sorted by name. A pattern without
+	 * wildcards is returned as is.
+	 */
+	static List<String> glob(String pattern) {
+		List<String> res = new ArrayList<String>();
+		if (!pattern.matches(".*[*?\\[{].*")) {
+			res.add(pattern);
+			return res;
+		}
+		// walk from the longest directory prefix without wildcards
+		String[] parts = pattern.split("/");
+		StringBuilder base = new StringBuilder();
+		int depth = 0;
+		boolean wild = false;
+		for (int i = 0; i < parts.length; i++) {
+			if (!wild && parts[i].matches(".*[*?\\[{].*"))
+				wild = true;
+			if (wild) {
+				depth = parts[i].contains("**") ? Integer.MAX_VALUE : (depth == Integer.MAX_VALUE ? depth : depth + 1);
+			} else {
+				if (i > 0)
+					base.append('/');
+				base.append(parts[i]);
+			}
+		}
+		if (base.length() == 0 && pattern.startsWith("/"))
+			base.append('/');
+		Path root = Paths.get(base.toString());
+		PathMatcher m = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+		if (!Files.isDirectory(base.length() == 0 ? Paths.get(".") : root))
+			return res;
+		try (Stream<Path> files = Files.walk(root, depth)) {
+			files.filter(p -> Files.isRegularFile(p) && m.matches(p)).forEach(p -> res.add(p.toString()));
+		} catch (IOException e) {
+			throw new IllegalArgumentException("Cannot expand " + pattern + ": " + e.getMessage());
+		}
+		Collections.sort(res);
+		return res;
+	}
+
+	/**
+	 * Execute all runs and write their results.
+	 * @throws IOException if the output file cannot be written
+	 */
+	public void run() throws IOException {
+		PrintStream out = output == null ? System.out : new PrintStream(new FileOutputStream(output), false, "UTF-8");
+		PrintStream stdout = System.out;
+		if (!verbose)
+			System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+		try {
+			header(out);
+
+			// resource files are shared by all runs, graphs are loaded by each run as
+			// schedulers modify the state of the nodes
+			Map<String, RC> rcs = new HashMap<String, RC>();
+			Map<String, Exception> rcErrors = new HashMap<String, Exception>();
+			for (String fn : resources) {
+				if (fn == null)
+					continue;
+				try {
+					RC rc = new RC();
+					rc.read(fn);
+					rcs.put(fn, rc);
+				} catch (IOException e) {
+					rcErrors.put(fn, e);
+				}
+			}
+			Map<String, Integer> criticalPath = new HashMap<String, Integer>();
+			Map<String, RuntimeException> graphErrors = new HashMap<String, RuntimeException>();
+			for (String fn : graphs) {
+				try {
+					Graph g = GraphCache.load(fn, backEdges);
+					GraphIndex gi = new GraphIndex(g);
+					criticalPath.put(fn, gi.isAcyclic() ? new SlackAnalysis(gi, 0).criticalPathLength() : 0);
+				} catch (RuntimeException e) {
+					graphErrors.put(fn, e);
+				}
+			}
+
+			ExecutorService pool = Executors.newFixedThreadPool(threads);
+			List<Future<Run>> results = new ArrayList<Future<Run>>();
+			for (String g : graphs)
+				for (String r : resources)
+					for (String a : algorithms)
+						for (int lmax : bounds) {
+							Run run = new Run(g, r, a, lmax);
+							if (graphErrors.containsKey(g)) {
+								run.fail("error", graphErrors.get(g));
+								results.add(CompletableFuture.completedFuture(run));
+							} else if (r != null && rcErrors.containsKey(r)) {
+								run.fail("error", rcErrors.get(r));
+								results.add(CompletableFuture.completedFuture(run));
+							} else {
+								if (lmax <= 0)
+									run.lmax = criticalPath.get(g);
+								RC rc = r == null ? null : rcs.get(r);
+								results.add(pool.submit(() -> schedule(run, rc, backEdges)));
+							}
+						}
+			pool.shutdown();
+			for (Future<Run> f : results) {
+				try {
+					print(out, f.get());
+				} catch (InterruptedException | ExecutionException e) {
+					throw new IllegalStateException(e);
+				}
+			}
+		} finally {
+			System.setOut(stdout);
+			out.flush();
+			if (out != System.out)
+				out.close();
+			if (trace)
+				Trace.dump(System.err);
+		}
+	}
+
+	/**
+	 * Execute a single run, failures are recorded in the run.
+	 */
+	private static Run schedule(Run run, RC rc, boolean backEdges) {
+		try {
+			Graph graph = GraphCache.load(run.graph, backEdges);
+			Scheduler s = Schedulers.create(run.algorithm, rc, run.lmax);
+			long start = System.nanoTime();
+			Schedule sched = s.schedule(graph);
+			run.millis = (System.nanoTime() - start) / 1e6;
+			if (s.metrics().enabled())
+				run.metrics = s.metrics().toJson();
+			if (sched == null) {
+				run.status = "failed";
+				run.error = "no schedule";
+			} else if (sched.size() < graph.size()) {
+				run.status = "invalid";
+				run.error = (graph.size() - sched.size()) + " nodes not scheduled";
+			} else if (sched.validate() != null) {
+				run.status = "invalid";
+				run.error = "dependency violated at " + sched.validate();
+			} else {
+				run.length = sched.length();
+				run.cost = sched.cost();
+				run.costs = sched.costPerResource();
+				run.units = Binding.bind(sched, rc).units();
+			}
+		} catch (Exception | StackOverflowError e) {
+			run.fail("error", e);
+		}
+		return run;
+	}
+
+	private void header(PrintStream out) {
+		if (json)
+			return;
+		out.print("graph,resources,algorithm,lmax,status,length,cost,units");
+		for (RT rt : RT.values())
+			out.print("," + rt.name());
+		out.println(",time_ms,error");
+	}
+
+	private void print(PrintStream out, Run run) {
+		String res = run.resources == null ? "" : run.resources;
+		if (json) {
+			StringBuilder sb = new StringBuilder();
+			sb.append("{\"graph\":").append(quote(run.graph)).append(",\"resources\":").append(quote(res))
+					.append(",\"algorithm\":").append(quote(run.algorithm)).append(",\"lmax\":").append(run.lmax)
+					.append(",\"status\":").append(quote(run.status)).append(",\"length\":").append(run.length)
+					.append(",\"cost\":").append(run.cost).append(",\"units\":").append(run.units)
+					.append(",\"costs\":{");
+			String sep = "";
+			for (Map.Entry<RT, Double> e : run.costs.entrySet()) {
+				sb.append(sep).append(quote(e.getKey().name())).append(':').append(e.getValue());
+				sep = ",";
+			}
+			sb.append("},\"time_ms\":").append(String.format(Locale.ROOT, "%.3f", run.millis)).append(",\"error\":")
+					.append(quote(run.error));
+			if (run.metrics != null)
+				sb.append(",\"metrics\":").append(run.metrics);
+			sb.append('}');
+			out.println(sb);
+		} else {
+			StringBuilder sb = new StringBuilder();
+			sb.append(csv(run.graph)).append(',').append(csv(res)).append(',').append(csv(run.algorithm)).append(',')
+					.append(run.lmax).append(',').append(run.status).append(',').append(run.length).append(',')
+					.append(run.cost).append(',').append(run.units);
+			for (RT rt : RT.values()) {
+				Double c = run.costs.get(rt);
+				sb.append(',').append(c == null ? 0.0 : c);
+			}
+			sb.append(',').append(String.format(Locale.ROOT, "%.3f", run.millis)).append(',').append(csv(run.error));
+			out.println(sb);
+		}
+		out.flush();
+	}
+
+	private static String csv(String s) {
+		if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0)
+			return s;
+		return '"' + s.replace("\"", "\"\"") + '"';
+	}
+
+	private static String quote(String s) {
+		StringBuilder sb = new StringBuilder("\"");
+		for (char c : s.toCharArray()) {
+			if (c == '"' || c == '\\')
+				sb.append('\\').append(c);
+			else if (c < 0x20)
+				sb.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+			else
+				sb.append(c);
+		}
+		return sb.append('"').toString();
+	}
+}
@@ -0,0 +1,296 @@
+package scheduler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Formatter;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Binding of the nodes of a finished schedule to functional units (left-edge algorithm).
+ * <p>
+ * The intervals of the nodes are visited by increasing lower bound (Interval.LBComp). The
+ * units whose node has released them before the interval starts (after the initiation
+ * interval of its type, see Schedule.busyUntil()) are returned to the free lists, one
+ * heap per resource type, and the node is bound to the free compatible unit supporting the
+ * fewest types. Nodes starting together are bound in order of their number of compatible
+ * units. For a single type the left-edge algorithm uses the minimal number of units, the
+ * peak usage of the type. As long as the greedy choice succeeds binding N nodes takes
+ * O(N log N).
+ * <p>
+ * With units supporting different sets of types the greedy choice can fail. Then the recent
+ * nodes of a busy compatible unit are exchanged with those of a free unit if possible.
+ * Otherwise an additional unit of the node's type is opened, thus the binding always
+ * succeeds and shows by how much the schedule exceeds the RC. An exchange tries every busy
+ * compatible unit against every free unit and scans the nodes of both, O(U^2 N) for U units,
+ * thus binding takes O(N^2 U^2) in the worst case.
+ */
+public class Binding {
+	private final Schedule schedule;
+	/**
+	 * Number of units executing at least one node
+	 */
+	private final int units;
+	/**
+	 * Number of units per resource type (by ordinal) in the RC, used ones and additional ones
+	 */
+	private final int[] limit, used, extra;
+
+	private Binding(Schedule schedule, int units, int[] limit, int[] used, int[] extra) {
+		this.schedule = schedule;
+		this.units = units;
+		this.limit = limit;
+		this.used = used;
+		this.extra = extra;
+	}
+
+	/**
+	 * Bind all nodes of a schedule, existing bindings are replaced.
+	 * @param schedule - the schedule, it is not changed
+	 * @param rc - the available units, may be null to only count the units needed
+	 * @return the binding
+	 */
+	public static Binding bind(final Schedule schedule, RC rc) {
+		final int types = RT.values().length;
+		// the units of the RC, then at most one additional unit per node
+		String[] rcNames = rc == null ? new String[0] : rc.names();
+		int capacity = rcNames.length + schedule.size();
+		String[] names = Arrays.copyOf(rcNames, capacity);
+		int[][] supports = new int[capacity][];
+		final int[] rank = new int[capacity];		// order in the free lists, the most specialised first
+		final int[] limit = new int[types];
+		boolean[][] can = new boolean[capacity][types];		// whether a unit supports a type
+		for (int i = 0; i < rcNames.length; i++) {
+			Set<RT> sup = rc.getAllRes().get(rcNames[i]);
+			supports[i] = new int[sup.size()];
+			int k = 0;
+			for (RT rt : sup) {
+				supports[i][k++] = rt.ordinal();
+				can[i][rt.ordinal()] = true;
+				limit[rt.ordinal()]++;
+			}
+		}
+
+		// by start, nodes with fewer compatible units first
+		List<Node> nodes = new ArrayList<Node>(schedule.nodes());
+		nodes.sort(Comparator.comparing(Node::toString));
+		final Interval.LBComp lb = new Interval.LBComp();
+		nodes.sort((a, b) -> {
+			int c = lb.compare(schedule.slot(a), schedule.slot(b));
+			return c != 0 ? c : limit[a.getRT().ordinal()] - limit[b.getRT().ordinal()];
+		});
+		// the order of compatible(): by the number of supported types, then by name
+		Integer[] byTypes = new Integer[rcNames.length];
+		for (int i = 0; i < byTypes.length; i++)
+			byTypes[i] = i;
+		Arrays.sort(byTypes, (a, b) -> supports[a].length != supports[b].length ? supports[a].length - supports[b].length
+				: rcNames[a].compareTo(rcNames[b]));
+		for (int k = 0; k < byTypes.length; k++)
+			rank[byTypes[k]] = k;
+		int units = rcNames.length;
+		int[][] compatible = rc == null ? new int[types][0] : rc.compatible();
+
+		Comparator<Integer> byRank = (a, b) -> rank[a] - rank[b];
+		List<PriorityQueue<Integer>> free = new ArrayList<PriorityQueue<Integer>>();
+		boolean[][] queued = new boolean[capacity][types];		// whether a unit is in the free list of a type
+		for (int rt = 0; rt < types; rt++) {
+			free.add(new PriorityQueue<Integer>(byRank));
+			for (int i : compatible[rt]) {
+				free.get(rt).add(i);
+				queued[i][rt] = true;
+			}
+		}
+		boolean[] busy = new boolean[capacity];
+		int[] current = new int[capacity];		// the node executed by a unit, the last one if it is free
+		int[] end = new int[capacity];			// last time step that node occupies the unit
+		Arrays.fill(end, Integer.MIN_VALUE);
+		// busy units by the end of their node, entries of nodes that moved are skipped
+		PriorityQueue<Long> ending = new PriorityQueue<Long>();
+
+		int[] extra = new int[types];
+		int[] binding = new int[nodes.size()];
+		List<List<Integer>> assigned = new ArrayList<List<Integer>>();	// the nodes of each unit by start
+		for (int i = 0; i < capacity; i++)
+			assigned.add(new ArrayList<Integer>());
+		for (int n = 0; n < nodes.size(); n++) {
+			Node nd = nodes.get(n);
+			Interval slot = schedule.slot(nd);
+			while (!ending.isEmpty() && (int) (ending.peek() >> 32) < slot.lbound) {
+				long e = ending.poll();
+				int i = (int) e;
+				if (!busy[i] || end[i] != (int) (e >> 32))
+					continue;
+				busy[i] = false;
+				for (int rt : supports[i]) {
+					if (!queued[i][rt]) {
+						free.get(rt).add(i);
+						queued[i][rt] = true;
+					}
+				}
+			}
+
+			int rt = nd.getRT().ordinal();
+			int unit = -1;
+			while (!free.get(rt).isEmpty() && unit < 0) {
+				int i = free.get(rt).poll();
+				queued[i][rt] = false;
+				if (!busy[i])
+					unit = i;
+			}
+			// exchange the recent nodes of a busy compatible unit with those of a free unit
+			for (int k = 0; k < compatible[rt].length && unit < 0; k++)
+				for (int f = 0; f < units && unit < 0; f++)
+					if (!busy[f] && exchange(schedule, nodes, assigned, can, binding, compatible[rt][k], f))
+						unit = compatible[rt][k];
+			if (unit >= 0) {
+				int f = binding[current[unit]];
+				busy[f] = true;
+				current[f] = current[unit];
+				end[f] = end[unit];
+				ending.add(((long) end[f] << 32) | f);
+			}
+			if (unit < 0) {
+				// exceed the RC by another unit of this type
+				unit = units++;
+				names[unit] = nd.getRT().name + "#" + extra[rt]++;
+				supports[unit] = new int[] { rt };
+				can[unit][rt] = true;
+				rank[unit] = unit;
+			}
+			busy[unit] = true;
+			assigned.get(unit).add(n);
+			current[unit] = n;
+			end[unit] = schedule.busyUntil(nd) - 1;
+			ending.add(((long) end[unit] << 32) | unit);
+			binding[n] = unit;
+		}
+
+		int[] used = new int[types];
+		boolean[][] executes = new boolean[units][types];	// types a unit executes
+		int active = 0;
+		for (int n = 0; n < nodes.size(); n++) {
+			int i = binding[n], rt = nodes.get(n).getRT().ordinal();
+			if (!executes[i][rt]) {
+				executes[i][rt] = true;
+				used[rt]++;
+			}
+		}
+		for (int i = 0; i < units; i++)
+			for (int rt = 0; rt < types; rt++)
+				if (executes[i][rt]) {
+					active++;
+					break;
+				}
+		Schedule bound = schedule.snapshot();
+		for (int n = 0; n < nodes.size(); n++)
+			bound.add(nodes.get(n), schedule.slot(nodes.get(n)), names[binding[n]]);
+		return new Binding(bound, active, limit, used, extra);
+	}
+
+	/**
+	 * Exchange the nodes of two units from some time on, such that the busy unit u gets the
+	 * nodes of the free unit f and becomes free. Going back from the last node of u, the
+	 * first time at which no node of f crosses and both units support each other's nodes
+	 * is used.
+	 * @return true iff the nodes were exchanged
+	 */
+	private static boolean exchange(Schedule schedule, List<Node> nodes, List<List<Integer>> assigned,
+			boolean[][] can, int[] binding, int u, int f) {
+		List<Integer> nu = assigned.get(u), nf = assigned.get(f);
+		int pf = nf.size();
+		for (int pu = nu.size() - 1; pu >= 0; pu--) {
+			Node x = nodes.get(nu.get(pu));
+			if (!can[f][x.getRT().ordinal()])
+				return false;
+			int from = schedule.slot(x).lbound;
+			while (pf > 0 && schedule.slot(nodes.get(nf.get(pf - 1))).lbound >= from) {
+				if (!can[u][nodes.get(nf.get(pf - 1)).getRT().ordinal()])
+					return false;
+				pf--;
+			}
+			if (pf > 0 && schedule.busyUntil(nodes.get(nf.get(pf - 1))) > from)
+				continue;
+			List<Integer> tu = new ArrayList<Integer>(nu.subList(pu, nu.size()));
+			List<Integer> tf = new ArrayList<Integer>(nf.subList(pf, nf.size()));
+			nu.subList(pu, nu.size()).clear();
+			nf.subList(pf, nf.size()).clear();
+			nu.addAll(tf);
+			nf.addAll(tu);
+			for (int n : tf)
+				binding[n] = u;
+			for (int n : tu)
+				binding[n] = f;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @return the schedule with every node bound to its unit
+	 */
+	public Schedule schedule() {
+		return schedule;
+	}
+
+	/**
+	 * @return the number of units executing at least one node
+	 */
+	public int units() {
+		return units;
+	}
+
+	/**
+	 * @param rt - resource type of interest
+	 * @return the number of units that execute nodes of the type
+	 */
+	public int used(RT rt) {
+		return used[rt.ordinal()];
+	}
+
+	/**
+	 * @param rt - resource type of interest
+	 * @return the number of units of the RC supporting the type
+	 */
+	public int limit(RT rt) {
+		return limit[rt.ordinal()];
+	}
+
+	/**
+	 * @param rt - resource type of interest
+	 * @return the number of units opened in addition to the RC for the type
+	 */
+	public int extra(RT rt) {
+		return extra[rt.ordinal()];
+	}
+
+	/**
+	 * @return true iff the schedule could be bound to the units of the RC
+	 */
+	public boolean feasible() {
+		for (int e : extra)
+			if (e > 0)
+				return false;
+		return true;
+	}
+
+	/**
+	 * @return the units used per resource type against the RC
+	 */
+	public String report() {
+		Formatter f = new Formatter();
+		f.format("%d units%s%n", units(), feasible() ? "" : ", exceeding the resource constraints");
+		for (RT rt : RT.values()) {
+			if (used[rt.ordinal()] == 0)
+				continue;
+			f.format(" %-6s %3d used of %3d", rt.name, used[rt.ordinal()], limit[rt.ordinal()]);
+			if (extra[rt.ordinal()] > 0)
+				f.format(" (%d additional)", extra[rt.ordinal()]);
+			f.format("%n");
+		}
+		String str = f.toString();
+		f.close();
+		return str;
+	}
+}
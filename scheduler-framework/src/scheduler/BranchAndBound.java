@@ -0,0 +1,499 @@
+package scheduler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Exact resource-constrained minimum-latency scheduler (branch and bound).
+ * <p>
+ * The search walks through the time steps like LIST. At every time step it picks the ready
+ * operation with the longest path to a leaf that has a free compatible instance and branches
+ * into starting it on each class of free instances (instances supporting the same types are
+ * interchangeable) and into deferring it past the time step. Once no decision is left the
+ * time advances to the next event, a finishing predecessor or instance. Starting operations
+ * only at events loses no schedule, as any schedule can be shifted left onto them.
+ * <p>
+ * A branch is cut as soon as its lower bound reaches the best schedule found so far (LIST
+ * gives the first one). The lower bound is the larger of the critical path through the
+ * earliest start times and a resource bound: the initiation intervals of the operations left
+ * over the instances able to run them, per resource type and for all types together. A state
+ * at a time step is remembered by the started operations and the remaining busy times of the
+ * instances and operations relative to the time step; reaching the same state at a later time
+ * step is dominated and cut.
+ * <p>
+ * The branches are searched in parallel on a work-stealing fork/join pool. When the time
+ * limit expires every unfinished branch reports its lower bound; the smallest of them bounds
+ * the optimum from below, thus the best schedule comes with its remaining optimality gap.
+ */
+public class BranchAndBound extends Scheduler {
+	/**
+	 * Maximum number of remembered states
+	 */
+	private static final int MEMO_LIMIT = 1 << 19;
+	/**
+	 * Number of search nodes between two checks of the time limit
+	 */
+	private static final int CHECK = 1 << 10;
+
+	private final RC rc;
+	private final long timeLimit;
+	private final int parallelism;
+
+	/**
+	 * Graph, resources and bounds of a run
+	 */
+	private GraphIndex gi;
+	private String[] names;
+	private int[][] compatible;
+	/**
+	 * Class of each instance, instances of a class support the same types
+	 */
+	private int[] unitClass;
+	/**
+	 * Longest path from each operation to a leaf, including its delay
+	 */
+	private int[] tail;
+	/**
+	 * All instances
+	 */
+	private int[] allUnits;
+	/**
+	 * Length of the best schedule so far and its start times and instances
+	 */
+	private final AtomicInteger best = new AtomicInteger();
+	private int[] bestStart, bestUnit;
+	private Schedule initial;
+	/**
+	 * Smallest lower bound of the branches left unfinished at the time limit
+	 */
+	private final AtomicInteger open = new AtomicInteger();
+	private volatile boolean expired;
+	private long deadline;
+	private final AtomicLong nodes = new AtomicLong();
+	private Map<Key, Integer> memo;
+	private int lowerBound;
+
+	/**
+	 * @param rc - resource constraints
+	 * @param timeLimit - time limit of the search in milliseconds, &lt;= 0 for none
+	 * @param parallelism - number of threads searching
+	 */
+	public BranchAndBound(final RC rc, long timeLimit, int parallelism) {
+		if (rc == null)
+			throw new IllegalArgumentException("BranchAndBound needs resource constraints");
+		this.rc = rc;
+		this.timeLimit = timeLimit;
+		this.parallelism = Math.max(1, parallelism);
+	}
+
+	/**
+	 * Partial schedule at a time step
+	 */
+	private final class State {
+		int t;
+		/**
+		 * Start time of each operation, -1 if it is not started
+		 */
+		final int[] start;
+		/**
+		 * Instance of each started operation
+		 */
+		final int[] unit;
+		/**
+		 * First free time step of each instance
+		 */
+		final int[] busyUntil;
+		/**
+		 * Operations deferred past the current time step
+		 */
+		final boolean[] deferred;
+		int started;
+
+		State(int n, int units) {
+			start = new int[n];
+			unit = new int[n];
+			busyUntil = new int[units];
+			deferred = new boolean[n];
+			Arrays.fill(start, -1);
+		}
+
+		State(State s) {
+			t = s.t;
+			start = s.start.clone();
+			unit = s.unit.clone();
+			busyUntil = s.busyUntil.clone();
+			deferred = s.deferred.clone();
+			started = s.started;
+		}
+
+		/**
+		 * @return the key of the state for the memo: the started operations and, relative to t,
+		 * the busy times of the instances (sorted within a class) and of the running operations
+		 */
+		Key key() {
+			int n = start.length, words = (n + 63) / 64, running = 0;
+			for (int v = 0; v < n; v++)
+				if (start[v] >= 0 && start[v] + gi.delay(v) > t)
+					running++;
+			long[] key = new long[words + busyUntil.length + running];
+			int k = words + busyUntil.length;
+			for (int v = 0; v < n; v++) {
+				if (start[v] < 0)
+					continue;
+				key[v >> 6] |= 1L << (v & 63);
+				if (start[v] + gi.delay(v) > t)
+					key[k++] = ((long) v << 32) | (start[v] + gi.delay(v) - t);
+			}
+			for (int i = 0; i < busyUntil.length; i++)
+				key[words + i] = ((long) unitClass[i] << 32) | Math.max(0, busyUntil[i] - t);
+			Arrays.sort(key, words, words + busyUntil.length);
+			return new Key(key);
+		}
+	}
+
+	private static final class Key {
+		private final long[] key;
+
+		Key(long[] key) {
+			this.key = key;
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(key);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof Key && Arrays.equals(key, ((Key) o).key);
+		}
+	}
+
+	@Override
+	public Schedule schedule(final Graph graph) {
+		Metrics m = newMetrics();
+		gi = new GraphIndex(graph);
+		int n = gi.size();
+		if (!gi.isAcyclic()) {
+			Trace.fail(Trace.Component.BNB, "Found no node with all predecessors planned. Cyclic dependencies?");
+			return null;
+		}
+		names = rc.names();
+		compatible = rc.compatible();
+		for (int v = 0; v < n; v++) {
+			if (compatible[gi.rtOrdinal(v)].length == 0) {
+				Trace.fail(Trace.Component.BNB, "No resource for %s of type %s", gi.node(v), gi.rt(v));
+				return null;
+			}
+		}
+		Map<String, Set<RT>> supports = rc.getAllRes();
+		List<Set<RT>> classes = new ArrayList<Set<RT>>();
+		unitClass = new int[names.length];
+		for (int i = 0; i < names.length; i++) {
+			Set<RT> s = supports.get(names[i]);
+			if (!classes.contains(s))
+				classes.add(s);
+			unitClass[i] = classes.indexOf(s);
+		}
+
+		long t0 = m.begin();
+		SlackAnalysis sa = new SlackAnalysis(gi, 0);
+		tail = new int[n];
+		for (int v = 0; v < n; v++)
+			tail[v] = sa.pathToLeaf(v);
+		allUnits = new int[names.length];
+		for (int i = 0; i < names.length; i++)
+			allUnits[i] = i;
+		m.end(Metrics.Phase.MOBILITY, t0);
+
+		// the first incumbent
+		initial = new LIST(rc).schedule(graph);
+		best.set(initial.length());
+		bestStart = null;
+		bestUnit = null;
+		memo = new ConcurrentHashMap<Key, Integer>();
+		nodes.set(0);
+		expired = false;
+
+		State root = new State(n, names.length);
+		lowerBound = bound(root);
+		open.set(Integer.MAX_VALUE);
+		deadline = timeLimit > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeLimit) : Long.MAX_VALUE;
+
+		t0 = m.begin();
+		if (lowerBound < best.get()) {
+			ForkJoinPool pool = new ForkJoinPool(parallelism);
+			try {
+				pool.invoke(new Search(root));
+			} finally {
+				pool.shutdown();
+			}
+		}
+		m.end(Metrics.Phase.SELECTION, t0);
+		m.add(Metrics.Counter.NODES_VISITED, nodes.get());
+		lowerBound = Math.max(lowerBound, Math.min(best.get(), open.get()));
+		memo = null;
+
+		if (Trace.on(Trace.Component.BNB, Trace.Level.INFO))
+			Trace.log(Trace.Component.BNB, Trace.Level.INFO, "%s", report());
+		if (bestStart == null)
+			return initial;
+		Schedule schedule = new Schedule();
+		for (int v = 0; v < n; v++)
+			schedule.add(gi.node(v), new Interval(bestStart[v], bestStart[v] + gi.delay(v) - 1), names[bestUnit[v]]);
+		return schedule;
+	}
+
+	/**
+	 * Search task of a subtree, the subtrees of its children are forked while the pool is
+	 * short of work
+	 */
+	@SuppressWarnings("serial")
+	private final class Search extends RecursiveAction {
+		private final State state;
+
+		Search(State state) {
+			this.state = state;
+		}
+
+		@Override
+		protected void compute() {
+			explore(state);
+		}
+	}
+
+	/**
+	 * Search the subtree of a state.
+	 */
+	private void explore(State s) {
+		int lb = bound(s);
+		if (lb >= best.get())
+			return;
+		if (expired || (nodes.incrementAndGet() % CHECK == 0 && System.nanoTime() > deadline)) {
+			expired = true;
+			open.accumulateAndGet(lb, Math::min);
+			return;
+		}
+		int n = gi.size();
+		if (s.started == n) {
+			complete(s);
+			return;
+		}
+
+		// the ready operation with a free instance and the longest path to a leaf
+		int v = -1;
+		for (int u = 0; u < n; u++) {
+			if (s.start[u] >= 0 || s.deferred[u] || tail[u] <= (v < 0 ? -1 : tail[v]) || release(s, u) > s.t)
+				continue;
+			for (int i : compatible[gi.rtOrdinal(u)]) {
+				if (s.busyUntil[i] <= s.t) {
+					v = u;
+					break;
+				}
+			}
+		}
+
+		List<State> children = new ArrayList<State>();
+		if (v < 0) {
+			State c = advance(s);
+			if (c != null)
+				children.add(c);
+		} else {
+			boolean[] tried = new boolean[unitClass.length];
+			for (int i : compatible[gi.rtOrdinal(v)]) {
+				if (s.busyUntil[i] > s.t || tried[unitClass[i]])
+					continue;
+				tried[unitClass[i]] = true;
+				State c = new State(s);
+				c.start[v] = s.t;
+				c.unit[v] = i;
+				c.busyUntil[i] = s.t + Math.max(1, gi.initiation(v));
+				c.started++;
+				children.add(c);
+			}
+			State c = new State(s);
+			c.deferred[v] = true;
+			children.add(c);
+		}
+
+		if (children.size() > 1 && RecursiveAction.getSurplusQueuedTaskCount() < 2) {
+			List<Search> tasks = new ArrayList<Search>();
+			for (State c : children)
+				tasks.add(new Search(c));
+			RecursiveAction.invokeAll(tasks);
+		} else {
+			for (State c : children) {
+				explore(c);
+				if (expired) {
+					open.accumulateAndGet(lb, Math::min);
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the time step at which all started predecessors of u have finished, MAX_VALUE if
+	 * one is not started yet
+	 */
+	private int release(State s, int u) {
+		int r = 0;
+		for (int k = gi.predBegin(u); k < gi.predEnd(u); k++) {
+			int p = gi.pred(k);
+			if (s.start[p] < 0)
+				return Integer.MAX_VALUE;
+			r = Math.max(r, s.start[p] + gi.delay(p));
+		}
+		return r;
+	}
+
+	/**
+	 * Advance to the next event. Deferred operations may start again.
+	 * @return the state at the next event, null if there is none or the state is dominated
+	 */
+	private State advance(State s) {
+		int next = Integer.MAX_VALUE;
+		for (int u = 0; u < gi.size(); u++) {
+			if (s.start[u] >= 0)
+				continue;
+			int r = release(s, u);
+			if (r > s.t && r < next)
+				next = r;
+		}
+		for (int b : s.busyUntil)
+			if (b > s.t && b < next)
+				next = b;
+		if (next == Integer.MAX_VALUE)
+			return null;
+		State c = new State(s);
+		c.t = next;
+		Arrays.fill(c.deferred, false);
+		Key key = c.key();
+		Integer seen = memo.get(key);
+		if (seen != null && seen <= next)
+			return null;
+		if (seen != null || memo.size() < MEMO_LIMIT)
+			memo.merge(key, next, Math::min);
+		return c;
+	}
+
+	/**
+	 * Record a complete schedule if it is better than the best one.
+	 */
+	private void complete(State s) {
+		int length = 0;
+		for (int v = 0; v < gi.size(); v++)
+			length = Math.max(length, s.start[v] + gi.delay(v));
+		synchronized (this) {
+			if (length >= best.get())
+				return;
+			best.set(length);
+			bestStart = s.start.clone();
+			bestUnit = s.unit.clone();
+		}
+		if (Trace.on(Trace.Component.BNB, Trace.Level.DEBUG))
+			Trace.log(Trace.Component.BNB, Trace.Level.DEBUG, "Found schedule of length %d", length);
+	}
+
+	/**
+	 * Lower bound of the length of every schedule completing the state: the critical path
+	 * through the earliest start times and the work left per resource type.
+	 */
+	private int bound(State s) {
+		int n = gi.size();
+		int[] est = new int[n];
+		int lb = 0;
+		int types = RT.values().length;
+		int[] work = new int[types], minTail = new int[types];
+		Arrays.fill(minTail, Integer.MAX_VALUE);
+		int allWork = 0, allTail = Integer.MAX_VALUE;		// minTail: smallest tail - initiation
+		for (int v = 0; v < n; v++) {
+			if (s.start[v] >= 0) {
+				est[v] = s.start[v];
+			} else {
+				int e = s.deferred[v] ? s.t + 1 : s.t;
+				for (int k = gi.predBegin(v); k < gi.predEnd(v); k++) {
+					int p = gi.pred(k);
+					e = Math.max(e, est[p] + gi.delay(p));
+				}
+				est[v] = e;
+				int rt = gi.rtOrdinal(v), ii = Math.max(1, gi.initiation(v));
+				work[rt] += ii;
+				allWork += ii;
+				minTail[rt] = Math.min(minTail[rt], tail[v] - ii);
+				allTail = Math.min(allTail, tail[v] - ii);
+			}
+			lb = Math.max(lb, est[v] + tail[v]);
+		}
+		// an operation keeps its instance busy until tail - initiation before the end
+		for (int rt = 0; rt < types; rt++)
+			if (work[rt] > 0)
+				lb = Math.max(lb, fill(s, work[rt], compatible[rt]) + minTail[rt]);
+		if (allWork > 0)
+			lb = Math.max(lb, fill(s, allWork, allUnits) + allTail);
+		return lb;
+	}
+
+	/**
+	 * @return the first time step by which the instances can have been busy for work steps
+	 * from their first free time step on
+	 */
+	private static int fill(State s, int work, int[] units) {
+		int[] free = new int[units.length];
+		for (int i = 0; i < units.length; i++)
+			free[i] = Math.max(s.t, s.busyUntil[units[i]]);
+		Arrays.sort(free);
+		long sum = 0;
+		for (int k = 1; ; k++) {
+			sum += free[k - 1];
+			int x = (int) ((work + sum + k - 1) / k);
+			if (k == free.length || x <= free[k])
+				return x;
+		}
+	}
+
+	/**
+	 * @return the proven lower bound of the schedule length of the last run
+	 */
+	public int lowerBound() {
+		return lowerBound;
+	}
+
+	/**
+	 * @return the length of the best schedule of the last run
+	 */
+	public int upperBound() {
+		return best.get();
+	}
+
+	/**
+	 * @return true iff the best schedule of the last run is proven optimal
+	 */
+	public boolean optimal() {
+		return lowerBound >= best.get();
+	}
+
+	/**
+	 * @return the remaining optimality gap of the last run, relative to the best schedule length
+	 */
+	public double gap() {
+		return (double) (best.get() - lowerBound) / best.get();
+	}
+
+	/**
+	 * @return best length, lower bound, gap and the number of search nodes of the last run
+	 */
+	public String report() {
+		return String.format("length %d, lower bound %d, gap %.1f%%%s, %d nodes", best.get(), lowerBound, 100 * gap(),
+				optimal() ? " (optimal)" : expired ? " (time limit)" : "", nodes.get());
+	}
+}
@@ -0,0 +1,239 @@
+package scheduler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Formatter;
+import java.util.List;
+
+/**
+ * Cycle and recurrence analysis of a graph in O(V+E).
+ * <p>
+ * Tarjan's algorithm finds the strongly connected components twice: over the edges within
+ * one iteration and over all edges including the loop-carried ones. A component of the first
+ * kind with more than one node (or a node with an edge to itself) contains a cycle of
+ * distance 0, the graph cannot be scheduled. For each such component one cycle through it
+ * is reported. The components of the second kind are the recurrences of a loop, they bound
+ * its initiation interval. The depth first search keeps its own stack, thus deep graphs do
+ * not overflow the call stack.
+ */
+public class CycleAnalysis {
+	/**
+	 * Index of the analysed graph
+	 */
+	private final GraphIndex graph;
+	/**
+	 * Component of each node over the intra-iteration edges and over all edges
+	 */
+	private final int[] intra, all;
+	/**
+	 * One cycle per intra-iteration component with a cycle
+	 */
+	private final List<List<Node>> cycles = new ArrayList<List<Node>>();
+	/**
+	 * Recurrences, i.e. components over all edges with a cycle
+	 */
+	private final List<List<Node>> recurrences = new ArrayList<List<Node>>();
+
+	/**
+	 * @param graph - index of the graph to analyse
+	 */
+	public CycleAnalysis(final GraphIndex graph) {
+		this.graph = graph;
+		int n = graph.size();
+		intra = new int[n];
+		all = new int[n];
+		int ci = components(false, intra);
+		int ca = components(true, all);
+
+		int[] queued = new int[n];
+		Arrays.fill(queued, -1);
+		for (List<Integer> c : members(intra, ci, false))
+			cycles.add(cycle(c, queued));
+		for (List<Integer> c : members(all, ca, true)) {
+			List<Node> rec = new ArrayList<Node>(c.size());
+			for (int v : c)
+				rec.add(graph.node(v));
+			recurrences.add(Collections.unmodifiableList(rec));
+		}
+	}
+
+	/**
+	 * Number of successors of a node, the intra-iteration ones first
+	 */
+	private int degree(int v, boolean carried) {
+		int d = graph.succEnd(v) - graph.succBegin(v);
+		if (carried)
+			d += graph.carriedSuccEnd(v) - graph.carriedSuccBegin(v);
+		return d;
+	}
+
+	/**
+	 * k-th successor of a node, see degree()
+	 */
+	private int successor(int v, int k) {
+		int d = graph.succEnd(v) - graph.succBegin(v);
+		return k < d ? graph.succ(graph.succBegin(v) + k) : graph.carriedSucc(graph.carriedSuccBegin(v) + k - d);
+	}
+
+	/**
+	 * Tarjan's algorithm without recursion.
+	 * @param carried - whether loop-carried edges are followed
+	 * @param comp - receives the component of each node
+	 * @return the number of components
+	 */
+	private int components(boolean carried, int[] comp) {
+		int n = graph.size();
+		int[] order = new int[n], low = new int[n];
+		int[] stack = new int[n], path = new int[n], next = new int[n];
+		boolean[] onStack = new boolean[n];
+		int count = 0, sp = 0, components = 0;
+		for (int root = 0; root < n; root++) {
+			if (order[root] != 0)
+				continue;
+			// path holds the nodes of the depth first search, next their next successor
+			int depth = 0;
+			path[0] = root;
+			next[0] = 0;
+			order[root] = low[root] = ++count;
+			stack[sp++] = root;
+			onStack[root] = true;
+			while (depth >= 0) {
+				int v = path[depth];
+				if (next[depth] < degree(v, carried)) {
+					int w = successor(v, next[depth]++);
+					if (order[w] == 0) {
+						order[w] = low[w] = ++count;
+						stack[sp++] = w;
+						onStack[w] = true;
+						path[++depth] = w;
+						next[depth] = 0;
+					} else if (onStack[w]) {
+						low[v] = Math.min(low[v], order[w]);
+					}
+					continue;
+				}
+				if (low[v] == order[v]) {
+					int w;
+					do {
+						w = stack[--sp];
+						onStack[w] = false;
+						comp[w] = components;
+					} while (w != v);
+					components++;
+				}
+				if (--depth >= 0)
+					low[path[depth]] = Math.min(low[path[depth]], low[v]);
+			}
+		}
+		return components;
+	}
+
+	/**
+	 * @return the nodes of the components with a cycle by index, the components in the order of
+	 * their first node
+	 */
+	private List<List<Integer>> members(int[] comp, int components, boolean carried) {
+		int[] size = new int[components];
+		for (int v = 0; v < comp.length; v++)
+			size[comp[v]]++;
+		int[] pos = new int[components];
+		Arrays.fill(pos, -1);
+		List<List<Integer>> res = new ArrayList<List<Integer>>();
+		for (int v = 0; v < comp.length; v++) {
+			boolean loop = false;
+			for (int k = 0; k < degree(v, carried) && !loop; k++)
+				loop = successor(v, k) == v;
+			if (size[comp[v]] == 1 && !loop)
+				continue;
+			if (pos[comp[v]] < 0) {
+				pos[comp[v]] = res.size();
+				res.add(new ArrayList<Integer>());
+			}
+			res.get(pos[comp[v]]).add(v);
+		}
+		return res;
+	}
+
+	/**
+	 * A cycle through the first node of an intra-iteration component, found by a breadth first
+	 * search within the component.
+	 * @param queued - position of each node in the queue of its component, -1 before
+	 */
+	private List<Node> cycle(List<Integer> members, int[] queued) {
+		int start = members.get(0), c = intra[start];
+		int[] parent = new int[members.size()];
+		int[] queue = new int[members.size()];
+		queued[start] = 0;
+		queue[0] = start;
+		parent[0] = -1;
+		int head = 0, tail = 1, last = -1;
+		while (head < tail && last < 0) {
+			int v = queue[head];
+			for (int k = graph.succBegin(v); k < graph.succEnd(v); k++) {
+				int w = graph.succ(k);
+				if (w == start) {
+					last = head;
+					break;
+				}
+				if (intra[w] != c || queued[w] >= 0)
+					continue;
+				queued[w] = tail;
+				parent[tail] = head;
+				queue[tail++] = w;
+			}
+			head++;
+		}
+		List<Node> res = new ArrayList<Node>();
+		for (int p = last; p >= 0; p = parent[p])
+			res.add(graph.node(queue[p]));
+		Collections.reverse(res);
+		res.add(graph.node(start));
+		return Collections.unmodifiableList(res);
+	}
+
+	/**
+	 * @return true iff the graph has no cycle within one iteration
+	 */
+	public boolean valid() {
+		return cycles.isEmpty();
+	}
+
+	/**
+	 * @return one cycle for each set of nodes depending on each other within one iteration.
+	 * The first node of each cycle is repeated at its end.
+	 */
+	public List<List<Node>> cycles() {
+		return Collections.unmodifiableList(cycles);
+	}
+
+	/**
+	 * @return the recurrences, i.e. the sets of nodes depending on each other over all edges
+	 * including the loop-carried ones
+	 */
+	public List<List<Node>> recurrences() {
+		return Collections.unmodifiableList(recurrences);
+	}
+
+	/**
+	 * @param v - node index
+	 * @return the component of the node over all edges, nodes of one recurrence share it
+	 */
+	public int component(int v) {
+		return all[v];
+	}
+
+	/**
+	 * @return the cycles and recurrences found
+	 */
+	public String report() {
+		Formatter f = new Formatter();
+		for (List<Node> c : cycles)
+			f.format("Cycle within one iteration: %s%n", c);
+		for (List<Node> r : recurrences)
+			f.format("Recurrence of %d nodes: %s%n", r.size(), r);
+		String str = f.toString();
+		f.close();
+		return str;
+	}
+}
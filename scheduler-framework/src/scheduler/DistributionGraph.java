@@ -0,0 +1,177 @@
+package scheduler;
+
+/**
+ * Distribution graphs of the force-directed scheduler.
+ * <p>
+ * For each resource type one contiguous row over the time steps 0..lmax-1 holds the summed
+ * probabilities that the nodes of this type occupy a resource instance. Every node starts at
+ * each step of its frame [asap, alap] with equal probability and occupies its instance for the
+ * initiation interval of its type, not its full delay (see RT.initiation). Nodes and resource
+ * types are addressed by their index (see GraphIndex and RT.ordinal()), the contribution of a
+ * single node can be added and subtracted again.
+ */
+public class DistributionGraph {
+	/**
+	 * Summed probabilities per resource type and time step
+	 */
+	private final double[][] rows;
+	/**
+	 * Resource type of each node
+	 */
+	private final int[] rt;
+	/**
+	 * Initiation interval of each node
+	 */
+	private final int[] initiation;
+	/**
+	 * Frame each node currently contributes with, lo &gt; hi if it does not contribute
+	 */
+	private final int[] lo, hi;
+
+	/**
+	 * Creates a distribution graph holding the contributions of all nodes with their current
+	 * frames.
+	 * @param frames - time frames of the nodes
+	 * @param lmax - maximum schedule length
+	 */
+	public DistributionGraph(final TimeFrames frames, int lmax) {
+		this(frames.graph(), lmax);
+		for (int v = 0; v < frames.size(); v++)
+			add(v, frames.asap(v), frames.alap(v));
+	}
+
+	/**
+	 * Creates an empty distribution graph, the nodes contribute once they are added.
+	 * @param graph - index of the graph
+	 * @param lmax - maximum schedule length
+	 */
+	public DistributionGraph(final GraphIndex graph, int lmax) {
+		int n = graph.size();
+		rows = new double[RT.values().length][lmax];
+		rt = new int[n];
+		initiation = new int[n];
+		lo = new int[n];
+		hi = new int[n];
+		for (int v = 0; v < n; v++) {
+			rt[v] = graph.rtOrdinal(v);
+			initiation[v] = graph.initiation(v);
+			lo[v] = 1;
+			hi[v] = 0;
+		}
+	}
+
+	/**
+	 * Add the contribution of a node with the given frame. A previous contribution of this
+	 * node is subtracted first.
+	 * @param v - index of the node
+	 * @param asap - earliest start time
+	 * @param alap - latest start time
+	 */
+	public void add(int v, int asap, int alap) {
+		subtract(v);
+		lo[v] = asap;
+		hi[v] = alap;
+		accumulate(v, 1.0);
+	}
+
+	/**
+	 * Subtract the current contribution of a node.
+	 * @param v - index of the node
+	 */
+	public void subtract(int v) {
+		if (lo[v] > hi[v])
+			return;
+		accumulate(v, -1.0);
+		lo[v] = 1;
+		hi[v] = 0;
+	}
+
+	private void accumulate(int v, double sign) {
+		double[] row = rows[rt[v]];
+		int d = initiation[v];
+		int last = Math.min(hi[v] + d - 1, row.length - 1);
+		double p = sign / (hi[v] - lo[v] + 1);
+		for (int i = Math.max(lo[v], 0); i <= last; i++)
+			row[i] += p * overlap(lo[v], hi[v], d, i);
+	}
+
+	/**
+	 * Number of start times in [asap, alap] at which a node occupying its resource for delay
+	 * time steps does so during time step t.
+	 */
+	static int overlap(int asap, int alap, int delay, int t) {
+		int first = Math.max(asap, t - delay + 1);
+		int last = Math.min(alap, t);
+		return last < first ? 0 : last - first + 1;
+	}
+
+	/**
+	 * Probability that a node with the given frame occupies its resource during time step t.
+	 * @param asap - earliest start time
+	 * @param alap - latest start time
+	 * @param delay - number of time steps the node occupies its resource, its initiation interval
+	 * @param t - time step of interest
+	 * @return the execution probability
+	 */
+	public static double probability(int asap, int alap, int delay, int t) {
+		return (double) overlap(asap, alap, delay, t) / (alap - asap + 1);
+	}
+
+	/**
+	 * Force of narrowing the frame of node v from [oldAsap, oldAlap] to [asap, alap]. That is
+	 * the sum of q_k,t weighted with the change of the node's occupation probability in every
+	 * time step of its old frame. With a lookahead factor the change itself is added to q_k,t,
+	 * as if the distribution graph already reflected the new frame (Paulin and Knight use 1/3).
+	 * @param v - index of the node
+	 * @param oldAsap - current earliest start time
+	 * @param oldAlap - current latest start time
+	 * @param asap - new earliest start time
+	 * @param alap - new latest start time
+	 * @param lookahead - weight of the change of the probability, 0 for the plain force
+	 * @return the force
+	 */
+	public double force(int v, int oldAsap, int oldAlap, int asap, int alap, double lookahead) {
+		double[] q = rows[rt[v]];
+		int busy = initiation[v];
+		double force = 0;
+		for (int i = oldAsap; i <= oldAlap + busy - 1; i++) {
+			double dp = probability(asap, alap, busy, i) - probability(oldAsap, oldAlap, busy, i);
+			force += (q[i] + lookahead * dp) * dp;
+		}
+		return force;
+	}
+
+	/**
+	 * @param type - resource type
+	 * @param t - time step
+	 * @return the summed probability of the resource type at the time step
+	 */
+	public double get(RT type, int t) {
+		return get(type.ordinal(), t);
+	}
+
+	/**
+	 * @param type - resource type index, i.e. RT.ordinal()
+	 * @param t - time step
+	 * @return the summed probability of the resource type at the time step, 0 outside the row
+	 */
+	public double get(int type, int t) {
+		double[] row = rows[type];
+		return t < 0 || t >= row.length ? 0.0 : row[t];
+	}
+
+	/**
+	 * @param type - resource type
+	 * @return the row of the resource type. Must not be modified.
+	 */
+	public double[] row(RT type) {
+		return rows[type.ordinal()];
+	}
+
+	/**
+	 * @return number of time steps of each row
+	 */
+	public int length() {
+		return rows[0].length;
+	}
+}
@@ -0,0 +1,28 @@
+package scheduler;
+
+/**
+ * Syntax error in a DOT file, carrying the position of the offending token.
+ */
+public class DotParseException extends RuntimeException {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Line (starting at 1) of the error
+	 */
+	public final int line;
+	/**
+	 * Column (starting at 1) of the error
+	 */
+	public final int column;
+
+	/**
+	 * @param msg - description of the error
+	 * @param line - line of the error
+	 * @param column - column of the error
+	 */
+	public DotParseException(String msg, int line, int column) {
+		super(line + ":" + column + ": " + msg);
+		this.line = line;
+		this.column = column;
+	}
+}
@@ -0,0 +1,332 @@
+package scheduler;
+
+import java.nio.CharBuffer;
+
+/**
+ * Single pass, char-level tokenizer for DOT files.
+ * <p>
+ * The lexer works directly on a CharBuffer (e.g. a decoded memory-mapped file) and does not
+ * create any objects for tokens. The text of the current token is addressed by start() and
+ * end(); identifiers can be interned in a Symbols table, which only allocates a String for
+ * an identifier seen for the first time. Comments (//, /* *&#47; and # lines) are skipped.
+ */
+public class Dot_lexer {
+	/**
+	 * Token types
+	 */
+	public static final int EOF = 0, ID = 1, STRING = 2, ARROW = 3, LBRACKET = 4, RBRACKET = 5,
+			LBRACE = 6, RBRACE = 7, SEMI = 8, COMMA = 9, EQUALS = 10;
+
+	private final CharBuffer in;
+	private final int limit;
+	/**
+	 * Read position, line and column of the read position
+	 */
+	private int pos, line = 1, col = 1;
+	/**
+	 * Type, text range and position of the current token. The text range of a STRING excludes
+	 * the quotes.
+	 */
+	private int type, start, end, tokLine, tokCol;
+
+	/**
+	 * @param in - characters to tokenize, positions are relative to in.position()
+	 */
+	public Dot_lexer(CharBuffer in) {
+		this.in = in.slice();
+		limit = this.in.limit();
+	}
+
+	/**
+	 * Advance to the next token.
+	 * @return the type of the new current token
+	 */
+	public int next() {
+		skip();
+		tokLine = line;
+		tokCol = col;
+		start = pos;
+		if (pos >= limit)
+			return type = EOF;
+
+		char c = in.get(pos);
+		switch (c) {
+		case '[': advance(); end = pos; return type = LBRACKET;
+		case ']': advance(); end = pos; return type = RBRACKET;
+		case '{': advance(); end = pos; return type = LBRACE;
+		case '}': advance(); end = pos; return type = RBRACE;
+		case ';': advance(); end = pos; return type = SEMI;
+		case ',': advance(); end = pos; return type = COMMA;
+		case '=': advance(); end = pos; return type = EQUALS;
+		case '-':
+			if (pos + 1 < limit && (in.get(pos + 1) == '>' || in.get(pos + 1) == '-')) {
+				advance();
+				advance();
+				end = pos;
+				return type = ARROW;
+			}
+			break;
+		case '"':
+			advance();
+			start = pos;
+			while (pos < limit && in.get(pos) != '"') {
+				if (in.get(pos) == '\\' && pos + 1 < limit)
+					advance();
+				advance();
+			}
+			if (pos >= limit)
+				throw error("Unterminated string");
+			end = pos;
+			advance();
+			return type = STRING;
+		default:
+			break;
+		}
+		if (idChar(c)) {
+			while (pos < limit && idChar(in.get(pos)))
+				advance();
+			end = pos;
+			return type = ID;
+		}
+		throw error("Unexpected character '" + c + "'");
+	}
+
+	private static boolean idChar(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_'
+				|| c == '.' || c == '#' || c == '$' || c >= 0x80;
+	}
+
+	private void advance() {
+		if (in.get(pos++) == '\n') {
+			line++;
+			col = 1;
+		} else {
+			col++;
+		}
+	}
+
+	/**
+	 * Skip white space and comments.
+	 */
+	private void skip() {
+		while (pos < limit) {
+			char c = in.get(pos);
+			if (c == ' ' || c == '\t' || c == '\r' || c == '\n') {
+				advance();
+			} else if (c == '#' && col == 1) {
+				while (pos < limit && in.get(pos) != '\n')
+					advance();
+			} else if (c == '/' && pos + 1 < limit && in.get(pos + 1) == '/') {
+				while (pos < limit && in.get(pos) != '\n')
+					advance();
+			} else if (c == '/' && pos + 1 < limit && in.get(pos + 1) == '*') {
+				int l = line, cl = col;
+				advance();
+				advance();
+				while (pos + 1 < limit && !(in.get(pos) == '*' && in.get(pos + 1) == '/'))
+					advance();
+				if (pos + 1 >= limit)
+					throw new DotParseException("Unterminated comment", l, cl);
+				advance();
+				advance();
+			} else {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * @return type of the current token
+	 */
+	public int type() {
+		return type;
+	}
+
+	/**
+	 * @return start of the text of the current token
+	 */
+	public int start() {
+		return start;
+	}
+
+	/**
+	 * @return end (exclusive) of the text of the current token
+	 */
+	public int end() {
+		return end;
+	}
+
+	/**
+	 * @return line of the current token
+	 */
+	public int line() {
+		return tokLine;
+	}
+
+	/**
+	 * @return column of the current token
+	 */
+	public int column() {
+		return tokCol;
+	}
+
+	/**
+	 * @return the characters tokenized, positions are the ones of start() and end()
+	 */
+	public CharSequence input() {
+		return in;
+	}
+
+	/**
+	 * @return text of the current token. Allocates a new String.
+	 */
+	public String text() {
+		return text(start, end);
+	}
+
+	/**
+	 * @param from - start position
+	 * @param to - end position (exclusive)
+	 * @return the text between the positions. Allocates a new String.
+	 */
+	public String text(int from, int to) {
+		return in.subSequence(from, to).toString();
+	}
+
+	/**
+	 * @param s - text to compare with
+	 * @return true iff the text of the current token equals s
+	 */
+	public boolean is(String s) {
+		int len = end - start;
+		if (len != s.length())
+			return false;
+		for (int i = 0; i < len; i++)
+			if (in.get(start + i) != s.charAt(i))
+				return false;
+		return true;
+	}
+
+	/**
+	 * @return true iff the text of the current token is a non-negative integer
+	 */
+	public boolean isNumber() {
+		if (start == end)
+			return false;
+		for (int i = start; i < end; i++)
+			if (in.get(i) < '0' || in.get(i) > '9')
+				return false;
+		return true;
+	}
+
+	/**
+	 * Parse the text of the current token as non-negative integer.
+	 * @return the value of the token
+	 */
+	public int intValue() {
+		if (start == end)
+			throw error("Expected a number");
+		int v = 0;
+		for (int i = start; i < end; i++) {
+			char c = in.get(i);
+			if (c < '0' || c > '9')
+				throw error("Expected a number but found \"" + text() + "\"");
+			v = v * 10 + (c - '0');
+		}
+		return v;
+	}
+
+	/**
+	 * @param msg - description of the error
+	 * @return an exception pointing to the current token
+	 */
+	public DotParseException error(String msg) {
+		return new DotParseException(msg, tokLine, tokCol);
+	}
+
+	/**
+	 * Symbol table mapping identifiers to values. Lookups by the current token compare the
+	 * characters in place, a String is only created for a new identifier.
+	 */
+	public static class Symbols<T> {
+		private String[] keys = new String[1024];
+		private Object[] values = new Object[1024];
+		private int size;
+
+		/**
+		 * @param lex - lexer positioned on the identifier
+		 * @return the value of the identifier, null if it is unknown
+		 */
+		@SuppressWarnings("unchecked")
+		public T get(Dot_lexer lex) {
+			int i = slot(lex);
+			return keys[i] == null ? null : (T) values[i];
+		}
+
+		/**
+		 * @param lex - lexer positioned on the identifier
+		 * @return the interned identifier
+		 */
+		public String intern(Dot_lexer lex) {
+			int i = slot(lex);
+			if (keys[i] == null)
+				return lex.text();
+			return keys[i];
+		}
+
+		/**
+		 * Set the value of the identifier of the current token.
+		 * @param lex - lexer positioned on the identifier
+		 * @param value - new value
+		 * @return the interned identifier
+		 */
+		public String put(Dot_lexer lex, T value) {
+			int i = slot(lex);
+			if (keys[i] == null) {
+				keys[i] = lex.text();
+				size++;
+			}
+			values[i] = value;
+			String key = keys[i];
+			if (2 * size > keys.length)
+				grow();
+			return key;
+		}
+
+		/**
+		 * @return number of identifiers
+		 */
+		public int size() {
+			return size;
+		}
+
+		private int slot(Dot_lexer lex) {
+			int h = 0;
+			for (int i = lex.start; i < lex.end; i++)
+				h = 31 * h + lex.in.get(i);
+			int mask = keys.length - 1;
+			int i = (h ^ (h >>> 16)) & mask;
+			while (keys[i] != null && !lex.is(keys[i]))
+				i = (i + 1) & mask;
+			return i;
+		}
+
+		private void grow() {
+			String[] ok = keys;
+			Object[] ov = values;
+			keys = new String[ok.length * 2];
+			values = new Object[ok.length * 2];
+			int mask = keys.length - 1;
+			for (int j = 0; j < ok.length; j++) {
+				if (ok[j] == null)
+					continue;
+				int h = ok[j].hashCode();
+				int i = (h ^ (h >>> 16)) & mask;
+				while (keys[i] != null)
+					i = (i + 1) & mask;
+				keys[i] = ok[j];
+				values[i] = ov[j];
+			}
+		}
+	}
+}
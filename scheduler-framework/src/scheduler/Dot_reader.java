@@ -1,103 +1,279 @@
 package scheduler;
 
-import java.io.FileReader;
-import java.io.BufferedReader;
-import java.io.FileNotFoundException;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * Reads DOT-ish files. (see graphviz)
  * <p>
- * The reader works somewhat crude. It reads the file line-wise
- * expecting at most one expression per line. It distinguishes between two
- * types of expressions:
- * 1. NODE [.*];
- * 2. NODE1 -> NODE2;
- * Where NODE, NODE1 and NODE2 are given by the following regular expression:
- * [a-zA-Z_0-9][a-zA-Z_0-9]*
- * Number 1 is a definition expression and adds a node to the graph.
- * Number 2 represents a directed link between two nodes. Nodes not previously
+ * The file is memory-mapped and tokenized in a single pass by Dot_lexer, thus any number of
+ * statements may appear on one line and a file may contain several digraph blocks, which are
+ * merged into one graph. The reader distinguishes between the following statements:
+ * 1. NODE [attributes];
+ * 2. NODE1 -> NODE2 [-> NODE3 ...] [attributes];
+ * Number 1 is a definition expression and adds a node to the graph. Its resource type is
+ * determined from the opcode of its label (see Opcodes), unknown opcodes are reported and
+ * classified as RT.OTHER. Nodes without a label are classified by their id (see RT.getRT()).
+ * Number 2 represents directed links between the nodes. Nodes not previously
  * found in the graph are added when found in a link expression. (As they are
- * in DOT)
+ * in DOT) The label of a link is its iteration distance, links without label have
+ * distance 0. Links with a distance &gt; 0 are only read if readBackEdges is set.
  * <p>
- * Graphs must not be circular!
+ * Default attribute statements (node, edge, graph) and assignments are skipped.
+ * Syntax errors are reported by a DotParseException.
  * <p>
  * See parse().
  */
 public class Dot_reader {
-//	private BufferedReader file_reader;
 	private Graph graph;
 	private boolean readBackEdges = false;
-	
+	/**
+	 * Nodes by their id
+	 */
+	private Dot_lexer.Symbols<Node> symbols;
+	private Dot_lexer lex;
+	/**
+	 * Iteration distance of the last attribute list, 0 if it has no label
+	 */
+	private int distance;
+	/**
+	 * Text range of the value of the label of the last attribute list, -1 if it has no label
+	 */
+	private int labelFrom, labelTo;
+	/**
+	 * Unknown opcodes of the last parse and their number of nodes
+	 */
+	private Map<String, Integer> unknown = new TreeMap<String, Integer>();
+	/**
+	 * Metrics of the last parse
+	 */
+	private Metrics metrics = new Metrics("Dot_reader");
+
 	public Dot_reader(boolean readBackEdges) {
 		this.readBackEdges = readBackEdges;
 		graph = new Graph();
 	}
-	
-	private void lex(BufferedReader input) {
-		String line;
-		Pattern pat_def = Pattern.compile("(\\w\\w*) (\\[.*\\]);.*");
-		Pattern pat_use = Pattern.compile("(\\w\\w*) -> (\\w\\w*);.*");
-		Pattern pat_itdep = Pattern.compile("(\\w\\w*) -> (\\w\\w*).*(\\[.*\\]);.*");
-		Matcher m;
-		try {
-			line = input.readLine();
-			while (line != null) {
-			
-				/* new node */
-				m = pat_def.matcher(line);
-				if (m.matches()){
-					if (m.group(1).compareTo("node") != 0){
-						Node n = new Node(m.group(1));
-						graph.add(n);
-						graph.get(n).setRT(RT.getRT(m.group(2)));
-					}
-				}
-				/* link */
-				m = pat_use.matcher(line);
-				if (m.matches()){
-					if (graph.link(new Node(m.group(1)), new Node(m.group(2)),0) == null) {
-						System.err.printf("ERROR: Found circular graph%n");
-						System.exit(-1);
-					}
-				}
-				
-				if(readBackEdges){
-					m = pat_itdep.matcher(line);
-					if (m.matches()){
-						int it = Integer.parseInt(m.group(3).split("\"")[1]);
-						if (graph.link(new Node(m.group(1)), new Node(m.group(2)),it) == null) {
-							System.err.printf("ERROR: Found circular graph%n");
-							System.exit(-1);
-						}
-					}
-				}
-				line = input.readLine();
+
+	/**
+	 * graphs : ( ['strict'] ('digraph'|'graph') [ID] '{' statement* '}' )* EOF
+	 */
+	private void lex(CharBuffer input) {
+		metrics = new Metrics("Dot_reader");
+		unknown = new TreeMap<String, Integer>();
+		long t = metrics.begin();
+		lex = new Dot_lexer(input);
+		symbols = new Dot_lexer.Symbols<Node>();
+		while (lex.next() != Dot_lexer.EOF) {
+			if (lex.type() == Dot_lexer.ID && lex.is("strict"))
+				lex.next();
+			if (lex.type() != Dot_lexer.ID || !(lex.is("digraph") || lex.is("graph")))
+				throw lex.error("Expected digraph but found \"" + lex.text() + "\"");
+			if (lex.next() == Dot_lexer.ID || lex.type() == Dot_lexer.STRING)
+				lex.next();
+			expect(Dot_lexer.LBRACE, "{");
+			while (lex.next() != Dot_lexer.RBRACE) {
+				if (lex.type() == Dot_lexer.EOF)
+					throw lex.error("Expected } but found end of file");
+				statement();
 			}
-		} catch (Throwable e) {
-			System.err.printf("FATAL: Could not read from input%n");
-			e.printStackTrace(System.err);
-			System.exit(-1);
 		}
+		symbols = null;
+		lex = null;
+		// nodes without a label
+		for (Node nd : graph)
+			if (nd.getRT() == null)
+				nd.setRT(RT.getRT(nd.id));
+		metrics.end(Metrics.Phase.PARSE, t);
+		if (!unknown.isEmpty())
+			Trace.fail(Trace.Component.GRAPH, "Unknown opcodes, classified as %s: %s", RT.OTHER, unknown);
 	}
-	
+
+	/**
+	 * Parse one statement, the lexer is positioned on its first token. On return it is
+	 * positioned on the last token of the statement.
+	 */
+	private void statement() {
+		if (lex.type() == Dot_lexer.SEMI)
+			return;
+		if (lex.type() != Dot_lexer.ID && lex.type() != Dot_lexer.STRING)
+			throw lex.error("Expected statement but found \"" + lex.text() + "\"");
+
+		boolean keyword = lex.type() == Dot_lexer.ID && (lex.is("node") || lex.is("edge") || lex.is("graph"));
+		Node node = keyword ? null : node();
+		int t = lex.next();
+		if (t == Dot_lexer.EQUALS) {
+			value();
+			terminate(lex.next());
+			return;
+		}
+		if (t == Dot_lexer.LBRACKET) {
+			attributes();
+			if (node != null && labelFrom >= 0)
+				classify(node);
+			terminate(lex.next());
+			return;
+		}
+		if (t != Dot_lexer.ARROW) {
+			terminate(t);
+			return;
+		}
+		if (keyword)
+			throw lex.error("Unexpected ->");
+
+		// edge chain, the attributes apply to all edges
+		Node[] chain = { node, null };
+		int length = 1;
+		while (t == Dot_lexer.ARROW) {
+			lex.next();
+			if (lex.type() != Dot_lexer.ID && lex.type() != Dot_lexer.STRING)
+				throw lex.error("Expected node but found \"" + lex.text() + "\"");
+			if (length == chain.length)
+				chain = Arrays.copyOf(chain, 2 * length);
+			chain[length++] = node();
+			t = lex.next();
+		}
+		distance = 0;
+		if (t == Dot_lexer.LBRACKET) {
+			attributes();
+			t = lex.next();
+		}
+		if (distance == 0 || readBackEdges) {
+			for (int i = 1; i < length; i++)
+				if (graph.link(chain[i - 1], chain[i], distance) == null)
+					throw lex.error("Found circular graph");
+			metrics.add(Metrics.Counter.EDGES_VISITED, length - 1);
+		}
+		terminate(t);
+	}
+
+	/**
+	 * Parse an attribute list, the lexer is positioned on '[' and ends on ']'. Sets distance
+	 * to the value of the label.
+	 */
+	private void attributes() {
+		distance = 0;
+		labelFrom = labelTo = -1;
+		while (lex.next() != Dot_lexer.RBRACKET) {
+			if (lex.type() == Dot_lexer.COMMA || lex.type() == Dot_lexer.SEMI)
+				continue;
+			if (lex.type() != Dot_lexer.ID)
+				throw lex.error("Expected attribute but found \"" + lex.text() + "\"");
+			boolean label = lex.is("label");
+			expect(lex.next(), Dot_lexer.EQUALS, "=");
+			value();
+			if (label) {
+				labelFrom = lex.start();
+				labelTo = lex.end();
+			}
+			if (label && lex.isNumber())
+				distance = lex.intValue();
+		}
+	}
+
+	private void value() {
+		int t = lex.next();
+		if (t != Dot_lexer.ID && t != Dot_lexer.STRING)
+			throw lex.error("Expected value but found \"" + lex.text() + "\"");
+	}
+
 	/**
-	 * Parses the open stream.
+	 * @param t - type of the token following a statement
+	 */
+	private void terminate(int t) {
+		if (t == Dot_lexer.SEMI)
+			return;
+		throw lex.error("Expected ; but found \"" + lex.text() + "\"");
+	}
+
+	private void expect(int type, String text) {
+		expect(lex.type(), type, text);
+	}
+
+	private void expect(int t, int type, String text) {
+		if (t != type)
+			throw lex.error("Expected " + text + " but found \"" + lex.text() + "\"");
+	}
+
+	/**
+	 * Set the resource type of a node from the opcode of the label just read.
+	 */
+	private void classify(Node node) {
+		RT rt = Opcodes.classify(lex.input(), labelFrom, labelTo);
+		if (rt == null) {
+			unknown.merge(Opcodes.opcode(lex.input(), labelFrom, labelTo), 1, Integer::sum);
+			rt = RT.OTHER;
+		}
+		node.setRT(rt);
+	}
+
+	/**
+	 * @return the node of the current token, added to the graph if it is new. Its resource
+	 * type is set by its label or after parsing.
+	 */
+	private Node node() {
+		Node node = symbols.get(lex);
+		if (node == null) {
+			node = graph.add(new Node(lex.text(), null));
+			symbols.put(lex, node);
+			metrics.inc(Metrics.Counter.NODES_VISITED);
+		}
+		return node;
+	}
+
+	/**
+	 * Parses the given file.
+	 * @param fn - name of the file
+	 * @return the graph
+	 * @throws DotParseException on syntax errors
+	 * @throws UncheckedIOException if the file cannot be read
 	 */
 	public Graph parse(String fn) {
-		BufferedReader file_reader;
-		
-		graph = new Graph();
-		
-		try {
-			file_reader = new BufferedReader(new FileReader(fn));
-			lex(file_reader);
-		} catch (FileNotFoundException e) {
-			System.err.printf("FATAL: File not found: %s%n", fn);
-			System.exit(-1);
+		CharBuffer input;
+		try (FileChannel channel = FileChannel.open(Paths.get(fn), StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			input = StandardCharsets.UTF_8.decode(buffer);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not read " + fn, e);
 		}
-		
+		graph = new Graph();
+		lex(input);
+		return graph;
+	}
+
+	/**
+	 * Parses DOT text.
+	 * @param input - the text
+	 * @return the graph
+	 * @throws DotParseException on syntax errors
+	 */
+	public Graph read(CharSequence input) {
+		graph = new Graph();
+		lex(CharBuffer.wrap(input));
 		return graph;
 	}
+
+	/**
+	 * @return the opcodes of the last parse that are not in the table of Opcodes, with their
+	 * number of nodes. These nodes are classified as RT.OTHER.
+	 */
+	public Map<String, Integer> unknownOpcodes() {
+		return Collections.unmodifiableMap(unknown);
+	}
+
+	/**
+	 * @return the time spent parsing and the nodes and edges read by the last parse, see Metrics
+	 */
+	public Metrics metrics() {
+		return metrics;
+	}
 }
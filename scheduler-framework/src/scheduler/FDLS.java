@@ -0,0 +1,268 @@
+package scheduler;
+
+import java.util.PriorityQueue;
+
+/**
+ * Force-directed list scheduler (Paulin and Knight, 1989).
+ * <p>
+ * Like LIST the operations are started in increasing time steps on the instances of the RC,
+ * and an instance stays busy for the initiation interval of the operation's type. The
+ * priority of a ready operation is the force of deferring it to the next time step, taken
+ * from the distribution graphs of the operations that are not started yet (see
+ * DistributionGraph): the self force of narrowing its frame to [t+1, alap] and the forces of
+ * pushing its successors back. Operations that cannot be deferred within the latency bound come
+ * first, the ones whose deferral eases the distribution graphs most are deferred.
+ * <p>
+ * The latency bound is not enforced. If an operation without mobility has to wait for an
+ * instance the bound grows and the frames of all waiting operations are extended. The frames
+ * of the remaining operations follow the started and deferred ones, only edges within one
+ * iteration are taken into account.
+ */
+public class FDLS extends Scheduler {
+	private final RC rc;
+	private final int lmax;
+
+	/**
+	 * Index, frames and distribution graphs of a run
+	 */
+	private GraphIndex gi;
+	private DistributionGraph dg;
+	/**
+	 * Earliest start time of each operation, its start time once it is started
+	 */
+	private int[] asap;
+	/**
+	 * Longest path from each operation to a leaf, the latest start time is latency - tail
+	 */
+	private int[] tail;
+	private boolean[] started;
+	private int latency;
+	/**
+	 * Work list of raise() and whether an operation is on it
+	 */
+	private int[] work;
+	private boolean[] queued;
+
+	/**
+	 * @param rc - resource constraints
+	 */
+	public FDLS(final RC rc) {
+		this(rc, 0);
+	}
+
+	/**
+	 * @param rc - resource constraints
+	 * @param lmax - initial latency bound of the frames. If lmax &lt;= 0 or lmax is below the
+	 * critical path length the critical path length is used.
+	 */
+	public FDLS(final RC rc, int lmax) {
+		if (rc == null)
+			throw new IllegalArgumentException("FDLS needs resource constraints");
+		this.rc = rc;
+		this.lmax = lmax;
+	}
+
+	@Override
+	public Schedule schedule(final Graph graph) {
+		Metrics m = newMetrics();
+		gi = new GraphIndex(graph);
+		int n = gi.size();
+		if (!gi.isAcyclic()) {
+			Trace.fail(Trace.Component.FDLS, "Found no node with all predecessors planned. Cyclic dependencies?");
+			return null;
+		}
+		String[] names = rc.names();
+		int[][] compatible = rc.compatible();
+		for (int v = 0; v < n; v++) {
+			if (compatible[gi.rtOrdinal(v)].length == 0) {
+				Trace.fail(Trace.Component.FDLS, "No resource for %s of type %s", gi.node(v), gi.rt(v));
+				return null;
+			}
+		}
+
+		long t0 = m.begin();
+		SlackAnalysis sa = new SlackAnalysis(gi, lmax);
+		if (!sa.feasible())
+			sa = new SlackAnalysis(gi, 0);
+		latency = sa.lmax();
+		asap = new int[n];
+		tail = new int[n];
+		started = new boolean[n];
+		work = new int[n];
+		queued = new boolean[n];
+		for (int v = 0; v < n; v++) {
+			asap[v] = sa.earliest(v);
+			tail[v] = sa.pathToLeaf(v);
+		}
+		m.end(Metrics.Phase.MOBILITY, t0);
+		t0 = m.begin();
+		dg = new DistributionGraph(gi, 2 * latency);
+		for (int v = 0; v < n; v++)
+			dg.add(v, asap[v], alap(v));
+		m.end(Metrics.Phase.PROBABILITIES, t0);
+
+		int[] busyUntil = new int[names.length];		// first free time step of each instance
+		int[] ready = new int[n];						// operations whose predecessors have finished
+		int readyCount = 0;
+		// operations whose predecessors are all started, by the time their last one finishes
+		PriorityQueue<Long> pending = new PriorityQueue<Long>();
+		int[] unplanned = new int[n];		// number of unstarted predecessors
+		for (int v = 0; v < n; v++) {
+			unplanned[v] = gi.predEnd(v) - gi.predBegin(v);
+			if (unplanned[v] == 0)
+				pending.add(((long) asap[v] << 32) | v);
+		}
+
+		Schedule schedule = new Schedule();
+		int t = 0, planned = 0;
+		t0 = m.begin();
+		while (planned < n) {
+			m.inc(Metrics.Counter.ITERATIONS);
+			while (!pending.isEmpty() && (int) (pending.peek() >>> 32) <= t)
+				ready[readyCount++] = (int) (long) pending.poll();
+
+			// start the ready operation that is the most expensive to defer and has a free instance
+			while (true) {
+				int best = -1, bestInstance = -1, at = -1;
+				double bestForce = 0;
+				for (int r = 0; r < readyCount; r++) {
+					int v = ready[r], instance = -1;
+					for (int i : compatible[gi.rtOrdinal(v)]) {
+						if (busyUntil[i] <= t) {
+							instance = i;
+							break;
+						}
+					}
+					if (instance < 0)
+						continue;
+					double force = alap(v) <= t ? Double.POSITIVE_INFINITY : deferral(v, t);
+					m.inc(Metrics.Counter.FORCE_EVALUATIONS);
+					if (best < 0 || force > bestForce || (force == bestForce && v < best)) {
+						best = v;
+						bestInstance = instance;
+						bestForce = force;
+						at = r;
+					}
+				}
+				if (best < 0)
+					break;
+				ready[at] = ready[--readyCount];
+				int d = gi.delay(best);
+				schedule.add(gi.node(best), new Interval(t, t + d - 1), names[bestInstance]);
+				if (Trace.on(Trace.Component.FDLS, Trace.Level.DEBUG))
+					Trace.log(Trace.Component.FDLS, Trace.Level.DEBUG, "%s at %d on %s, deferral force %.4f", gi.node(best), t,
+							names[bestInstance], bestForce);
+				busyUntil[bestInstance] = t + Math.max(gi.initiation(best), 1);
+				started[best] = true;
+				dg.add(best, t, t);
+				planned++;
+				m.inc(Metrics.Counter.NODES_VISITED);
+				m.add(Metrics.Counter.EDGES_VISITED, gi.succEnd(best) - gi.succBegin(best));
+				for (int k = gi.succBegin(best); k < gi.succEnd(best); k++) {
+					int s = gi.succ(k);
+					raise(s, t + d);
+					if (--unplanned[s] == 0)
+						pending.add(((long) asap[s] << 32) | s);
+				}
+			}
+			if (planned == n)
+				break;
+
+			// advance to the next event, the waiting operations are deferred until then
+			int next = Integer.MAX_VALUE;
+			if (!pending.isEmpty())
+				next = (int) (pending.peek() >>> 32);
+			for (int i = 0; i < busyUntil.length; i++)
+				if (busyUntil[i] > t)
+					next = Math.min(next, busyUntil[i]);
+			next = Math.max(t + 1, next == Integer.MAX_VALUE ? t + 1 : next);
+			int grow = 0;
+			for (int r = 0; r < readyCount; r++)
+				grow = Math.max(grow, next - alap(ready[r]));
+			if (grow > 0)
+				grow(grow);
+			for (int r = 0; r < readyCount; r++)
+				raise(ready[r], next);
+			t = next;
+		}
+		m.end(Metrics.Phase.SELECTION, t0);
+		dg = null;
+		return schedule;
+	}
+
+	/**
+	 * @return the latest start time of an operation under the current latency bound
+	 */
+	private int alap(int v) {
+		return latency - tail[v];
+	}
+
+	/**
+	 * Force of deferring the ready operation v from t to t+1: the self force of its frame
+	 * [t, alap] becoming [t+1, alap] and the forces of the successors it pushes back.
+	 */
+	private double deferral(int v, int t) {
+		double force = dg.force(v, t, alap(v), t + 1, alap(v), 0);
+		int earliest = t + 1 + gi.delay(v);
+		for (int k = gi.succBegin(v); k < gi.succEnd(v); k++) {
+			int s = gi.succ(k);
+			if (earliest > asap[s])
+				force += dg.force(s, asap[s], alap(s), earliest, alap(s), 0);
+		}
+		return force;
+	}
+
+	/**
+	 * Raise the earliest start time of the unstarted operation v to at least e and push its
+	 * successors back accordingly.
+	 */
+	private void raise(int v, int e) {
+		if (e <= asap[v])
+			return;
+		int top = 0;
+		asap[v] = e;
+		work[top++] = v;
+		queued[v] = true;
+		while (top > 0) {
+			int u = work[--top];
+			queued[u] = false;
+			dg.add(u, asap[u], alap(u));
+			int end = asap[u] + gi.delay(u);
+			for (int k = gi.succBegin(u); k < gi.succEnd(u); k++) {
+				int s = gi.succ(k);
+				if (end > asap[s]) {
+					asap[s] = end;
+					if (!queued[s]) {
+						queued[s] = true;
+						work[top++] = s;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Extend the latency bound, and the frames of all unstarted operations with it.
+	 */
+	private void grow(int by) {
+		latency += by;
+		int n = gi.size();
+		if (latency > dg.length()) {
+			dg = new DistributionGraph(gi, 2 * latency);
+			for (int v = 0; v < n; v++)
+				if (started[v])
+					dg.add(v, asap[v], asap[v]);
+		}
+		for (int v = 0; v < n; v++)
+			if (!started[v])
+				dg.add(v, asap[v], alap(v));
+	}
+
+	/**
+	 * @return the latency bound the frames ended with in the last run, at least the schedule
+	 * length
+	 */
+	public int latency() {
+		return latency;
+	}
+}
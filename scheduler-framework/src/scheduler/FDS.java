@@ -1,295 +1,628 @@
 package scheduler;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Set;
-import java.util.TreeSet;
-
-public class FDS extends Scheduler {
-
-	Map<Node, Interval> mobilityIntervals;
-	Map<Node, HashMap<Integer, Float>> probabilities;
-	Map<String, HashMap<Integer, Float>> resource_usage;
-	
-	private final int lmax; // 
-	
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Predicate;
+
+public class FDS extends Scheduler implements TimeConstrained {
+
+	/**
+	 * ASAP/ALAP time frames under the current partial schedule
+	 */
+	TimeFrames frames;
+	/**
+	 * Index of the scheduled graph
+	 */
+	GraphIndex index;
+	/**
+	 * Distribution graphs (q_k,t) of all resource types
+	 */
+	DistributionGraph distribution;
+
+	/**
+	 * Maximum schedule length
+	 */
+	private final int lmax;
+
 	private final RC resource_graph;
-	
+
+	/**
+	 * Number of threads evaluating forces, 1 for sequential evaluation
+	 */
+	private final int parallelism;
+	/**
+	 * Minimum number of nodes evaluated by one fork/join task
+	 */
+	private static final int THRESHOLD = 16;
+	/**
+	 * Weight of the probability change in the lookahead force (Paulin and Knight)
+	 */
+	private static final double LOOKAHEAD = 1.0 / 3;
+	/**
+	 * Whether the forces look ahead: the predecessor and successor forces cover all transitive
+	 * neighbours whose frame a placement narrows, and the self forces anticipate the change of
+	 * the distribution graph
+	 */
+	private final boolean lookahead;
+	/**
+	 * Pool evaluating forces in parallel mode, only alive during schedule()
+	 */
+	private ForkJoinPool pool;
+
+	/**
+	 * Cached self, predecessor and successor forces of each node, indexed by start time - asap
+	 */
+	private double[][] selfForces, predForces, succForces;
+	/**
+	 * Frame the cached forces of each node were computed for
+	 */
+	private int[] cachedAsap, cachedAlap;
+	/**
+	 * Invalidation flags of the cached forces
+	 */
+	private boolean[] selfDirty, predDirty, succDirty;
+	/**
+	 * Nodes with at least one invalidated force, the first dirtyCount entries are valid
+	 */
+	private int[] dirty;
+	private int dirtyCount;
+	/**
+	 * Best force and its time step of each node as found by the last evaluation
+	 */
+	private double[] bestForce;
+	private int[] bestTime;
+	/**
+	 * Version of the cached forces of each node, heap entries of older versions are stale
+	 */
+	private int[] version;
+	/**
+	 * Nodes of each resource type
+	 */
+	private int[][] typeNodes;
+	/**
+	 * Best force of each node, lazily invalidated
+	 */
+	private PriorityQueue<Candidate> forces;
+	/**
+	 * Unfixed nodes without mobility, planned before any force is compared
+	 */
+	private PriorityQueue<Integer> immobile;
+
+	/**
+	 * Entry of the force queue. Ordered by force, ties are broken by node index and time.
+	 */
+	private static final class Candidate implements Comparable<Candidate> {
+		final double force;
+		final int node, time, version;
+
+		Candidate(double force, int node, int time, int version) {
+			this.force = force;
+			this.node = node;
+			this.time = time;
+			this.version = version;
+		}
+
+		public int compareTo(Candidate c) {
+			int res = Double.compare(force, c.force);
+			if (res != 0)
+				return res;
+			res = Integer.compare(node, c.node);
+			if (res != 0)
+				return res;
+			return Integer.compare(time, c.time);
+		}
+	}
+
 	public FDS(final RC rc, int lmax) {
+		this(rc, lmax, 1);
+	}
+
+	/**
+	 * @param rc - resource constraints
+	 * @param lmax - maximum schedule length
+	 * @param parallelism - number of threads evaluating the forces of the candidates. The
+	 * resulting schedule does not depend on it.
+	 */
+	public FDS(final RC rc, int lmax, int parallelism) {
+		this(rc, lmax, parallelism, false);
+	}
+
+	/**
+	 * @param rc - resource constraints
+	 * @param lmax - maximum schedule length
+	 * @param parallelism - number of threads evaluating the forces of the candidates
+	 * @param lookahead - whether a placement is rated by its effect on all transitive
+	 * predecessors and successors and with the lookahead factor of Paulin and Knight. All forces
+	 * are evaluated again after every placement.
+	 */
+	public FDS(final RC rc, int lmax, int parallelism, boolean lookahead) {
 		this.lmax = lmax;
 		resource_graph = rc;
+		this.parallelism = Math.max(1, parallelism);
+		this.lookahead = lookahead;
 	}
 
 	@Override
 	public Schedule schedule(final Graph graph) {
-		// Add all nodes to queue
-		Set<Node> queue = new TreeSet<Node>();
-		for (Node node : graph.getNodes().keySet()) {
-			queue.add(node);
+		Metrics m = newMetrics();
+		index = new GraphIndex(graph);
+		if (!index.isAcyclic()) {
+			Trace.fail(Trace.Component.FDS, "Found no node with all predecessors planned. Cyclic dependencies?");
+			return null;
+		}
+		long t = m.begin();
+		frames = new TimeFrames(index, lmax);
+		m.end(Metrics.Phase.MOBILITY, t);
+		return run(null);
+	}
+
+	@Override
+	public int lmax() {
+		return lmax;
+	}
+
+	@Override
+	public Schedule schedule(final SlackAnalysis analysis, Predicate<Schedule> abort) {
+		if (analysis.lmax() != lmax)
+			throw new IllegalArgumentException("Analysis for latency bound " + analysis.lmax() + " instead of " + lmax);
+		Metrics m = newMetrics();
+		index = analysis.graph();
+		long t = m.begin();
+		frames = new TimeFrames(analysis);
+		m.end(Metrics.Phase.MOBILITY, t);
+		return run(abort);
+	}
+
+	/**
+	 * Schedule the nodes within the current frames.
+	 */
+	private Schedule run(Predicate<Schedule> abort) {
+		if (!frames.valid()) {
+			Trace.fail(Trace.Component.FDS, "Latency bound %d is too small for this graph", lmax);
+			return null;
+		}
+		// Compute all p_i,t and q_k,t
+		long t = metrics.begin();
+		distribution = new DistributionGraph(frames, lmax);
+		metrics.end(Metrics.Phase.PROBABILITIES, t);
+		if (parallelism > 1)
+			pool = new ForkJoinPool(parallelism);
+		try {
+			return schedule(abort);
+		} finally {
+			if (pool != null)
+				pool.shutdown();
+			pool = null;
 		}
-		
+	}
+
+	private Schedule schedule(Predicate<Schedule> abort) {
+		init();
+
 		Schedule schedule = new Schedule();
-		
-		while (queue.size() > 0) {
-			// Determine node mobility with respect to fixed operations
-			mobilityIntervals = mobility(graph, schedule);
-			// Compute all p_i,t and q_k,t
-			probabilities = calcProbabilites();
-			resource_usage = calcResourceUsage(graph);
-			
-			// Evaluate Set K of all operations v_i with mobility_i > 0
-			Set<Node> candidates = new TreeSet<Node>();
-			for (Node node : queue) {
-				Interval slot = mobilityIntervals.get(node);
-				if (slot.ubound - slot.lbound > 0) { // mobility > 0
-					candidates.add(node);
-				} else {
-					// TODO schedule directly
-				}
-			}
-			
-			// Compute sum of forces of v_i for all time steps t in [tau_asap(v_i), tau_alap(v_i)];
-			Node minForceNode = null;
-			int minForceTime = -1;
-			float minForce = Float.MAX_VALUE;
-			for (Node node : candidates) {
-				for (int time = 0; time < lmax; time++) {
-					// compute sum of forces (for node and time)
-					float forceSum = computeForces(schedule, node, time);
-					// keep track of lowest force node
-					if (forceSum < minForce) {
-						minForceNode = node;
-						minForceTime = time;
-						minForce = forceSum;
-					}
-				}
+
+		for (int planned = 0; planned < frames.size(); planned++) {
+			long t = metrics.begin();
+			int minForceNode, minForceTime;
+			if (!immobile.isEmpty()) {
+				// operations without mobility are planned directly
+				minForceNode = immobile.poll();
+				minForceTime = frames.asap(minForceNode);
+			} else {
+				// Plan operation with smallest force
+				Candidate c = forces.poll();
+				while (frames.isFixed(c.node) || c.version != version[c.node])
+					c = forces.poll();
+				minForceNode = c.node;
+				minForceTime = c.time;
 			}
-			
-			// Plan operation with smallest force
-			Interval slot = new Interval(minForceTime, minForceTime + minForceNode.getDelay());
-			schedule.add(minForceNode, slot);
-			queue.remove(minForceNode);
+
+			Node node = index.node(minForceNode);
+			if (Trace.on(Trace.Component.FDS, Trace.Level.DEBUG))
+				Trace.log(Trace.Component.FDS, Trace.Level.DEBUG, "%s at %d, frame [%d, %d], force %.4f", node,
+						minForceTime, frames.asap(minForceNode), frames.alap(minForceNode), bestForce[minForceNode]);
+			schedule.add(node, new Interval(minForceTime, minForceTime + node.getDelay() - 1));
+			metrics.end(Metrics.Phase.SELECTION, t);
+			t = metrics.begin();
+			frames.fix(node, minForceTime);
+			metrics.end(Metrics.Phase.MOBILITY, t);
+			update();
+			metrics.inc(Metrics.Counter.ITERATIONS);
+			if (abort != null && abort.test(schedule))
+				return null;
 		}
-		
+
 		return schedule;
 	}
-	
-	
-	private float computeForces(Schedule schedule, Node node, int time) {
-		// TODO implement
-		
-		
-		// Self force
-		float q_node = resource_usage.get(node.getRT()).get(time);
-		float q_avg = 0;
-		Interval mobility = mobilityIntervals.get(node);
-		for (int i = mobility.lbound; i <= mobility.ubound; i++) {
-			q_avg += resource_usage.get(node.getRT()).get(i);
+
+	/**
+	 * Set up the force caches and evaluate the forces of all nodes.
+	 */
+	private void init() {
+		int n = frames.size();
+		selfForces = new double[n][];
+		predForces = new double[n][];
+		succForces = new double[n][];
+		cachedAsap = new int[n];
+		cachedAlap = new int[n];
+		selfDirty = new boolean[n];
+		predDirty = new boolean[n];
+		succDirty = new boolean[n];
+		dirty = new int[n];
+		dirtyCount = 0;
+		version = new int[n];
+		bestForce = new double[n];
+		bestTime = new int[n];
+		forces = new PriorityQueue<Candidate>();
+		immobile = new PriorityQueue<Integer>();
+
+		int[] cnt = new int[RT.values().length];
+		for (int v = 0; v < n; v++)
+			cnt[index.rtOrdinal(v)]++;
+		typeNodes = new int[cnt.length][];
+		for (int k = 0; k < cnt.length; k++) {
+			typeNodes[k] = new int[cnt[k]];
+			cnt[k] = 0;
+		}
+		for (int v = 0; v < n; v++) {
+			int k = index.rtOrdinal(v);
+			typeNodes[k][cnt[k]++] = v;
+		}
+
+		for (int v = 0; v < n; v++) {
+			cachedAsap[v] = frames.asap(v);
+			cachedAlap[v] = frames.alap(v);
+			invalidate(v, true, true, true);
+		}
+		evaluate();
+	}
+
+	/**
+	 * Update the distribution graphs after a node has been fixed and invalidate the cached
+	 * forces that depend on a changed frame or on a changed part of a distribution graph.
+	 */
+	private void update() {
+		long t = metrics.begin();
+		int[] changed = frames.changed();
+		int types = RT.values().length;
+		int[] dirtyLo = new int[types], dirtyHi = new int[types];
+		for (int k = 0; k < types; k++) {
+			dirtyLo[k] = Integer.MAX_VALUE;
+			dirtyHi[k] = Integer.MIN_VALUE;
 		}
-		q_avg /= mobility.ubound - mobility.lbound - node.getDelay() + 1;
-		float selfForce = q_node - q_avg;
-		
-		// pseudo-plan node
-		
-		// Predecessor forces
-		float predForceSum = 0;
-		for (Node predecessor : node.allPredecessors().keySet()) {
-			float predForce = 0;
-			mobility = mobilityIntervals.get(node);
-			for (int i = mobility.lbound; i <= mobility.ubound; i++) {
-				predForce += resource_usage.get(node.getRT()).get(i);
+
+		// Update the distribution graphs with the changed frames only
+		for (int v : changed) {
+			int k = index.rtOrdinal(v);
+			dirtyLo[k] = Math.min(dirtyLo[k], Math.min(cachedAsap[v], frames.asap(v)));
+			dirtyHi[k] = Math.max(dirtyHi[k], Math.max(cachedAlap[v], frames.alap(v)) + index.initiation(v) - 1);
+			distribution.add(v, frames.asap(v), frames.alap(v));
+
+			invalidate(v, true, true, true);
+			invalidateNeighbours(v);
+		}
+
+		// Forces reading a changed part of a distribution graph, the transitive forces of the
+		// lookahead may read any part
+		for (int v = 0; lookahead && v < frames.size(); v++)
+			invalidate(v, true, true, true);
+		for (int k = 0; k < types && !lookahead; k++) {
+			if (dirtyLo[k] > dirtyHi[k])
+				continue;
+			for (int v : typeNodes[k]) {
+				if (frames.isFixed(v))
+					continue;
+				int lo = frames.asap(v), hi = frames.alap(v) + index.initiation(v) - 1;
+				if (hi < dirtyLo[k] || lo > dirtyHi[k])
+					continue;
+				invalidate(v, true, false, false);
+				invalidateNeighbours(v);
+			}
+		}
+		metrics.end(Metrics.Phase.RESOURCE_USAGE, t);
+		evaluate();
+	}
+
+	/**
+	 * Mark the forces of the neighbours of v that read the frame of v as invalid.
+	 */
+	private void invalidateNeighbours(int v) {
+		for (int k = index.predBegin(v); k < index.predEnd(v); k++)
+			invalidate(index.pred(k), false, false, true);
+		for (int k = index.succBegin(v); k < index.succEnd(v); k++)
+			invalidate(index.succ(k), false, true, false);
+	}
+
+	/**
+	 * Mark forces of node v as invalid.
+	 */
+	private void invalidate(int v, boolean self, boolean pred, boolean succ) {
+		if (frames.isFixed(v))
+			return;
+		if (!(selfDirty[v] || predDirty[v] || succDirty[v]))
+			dirty[dirtyCount++] = v;
+		selfDirty[v] |= self;
+		predDirty[v] |= pred;
+		succDirty[v] |= succ;
+	}
+
+	/**
+	 * Recompute the invalidated forces and queue the new best force of each affected node.
+	 */
+	private void evaluate() {
+		// nodes left to compute are compacted to the front of the dirty list
+		int todo = 0;
+		for (int d = 0; d < dirtyCount; d++) {
+			int v = dirty[d];
+			if (frames.isFixed(v)) {
+				selfDirty[v] = predDirty[v] = succDirty[v] = false;
+				continue;
+			}
+			int asap = frames.asap(v), alap = frames.alap(v);
+			if (asap == alap) {
+				if (cachedAsap[v] != cachedAlap[v] || selfForces[v] == null)
+					immobile.add(v);
+				cachedAsap[v] = asap;
+				cachedAlap[v] = alap;
+				selfForces[v] = predForces[v] = succForces[v] = new double[0];
+				selfDirty[v] = predDirty[v] = succDirty[v] = false;
+				continue;
 			}
-			predForce /= mobility.ubound - mobility.lbound - node.getDelay() + 1;
+			dirty[todo++] = v;
 		}
-		// Successor forces
-		float succForceSum = 0;
-		for (Node successor : node.allSuccessors().keySet()) {
-			
+
+		// the frames and distribution graphs are read-only while the forces are computed
+		long t = metrics.begin();
+		if (pool != null && todo > THRESHOLD)
+			pool.invoke(new Evaluation(0, todo));
+		else
+			evaluate(0, todo);
+
+		for (int d = 0; d < todo; d++) {
+			int v = dirty[d];
+			forces.add(new Candidate(bestForce[v], v, bestTime[v], ++version[v]));
 		}
-		
-		return selfForce + predForceSum + succForceSum;
+		dirtyCount = 0;
+		metrics.end(Metrics.Phase.FORCES, t);
+		metrics.add(Metrics.Counter.FORCE_EVALUATIONS, todo);
 	}
-	
-	
-	private HashMap<Node, Interval> mobility(final Graph graph, final Schedule partialSchedule) {
-		HashMap<Node, Interval> mob = new HashMap<Node, Interval>();
-		
-		Schedule asap = new ASAP_Fixed().schedule(graph, partialSchedule);
-		Schedule alap = new ALAP_Fixed(lmax).schedule(graph, partialSchedule);
-		
-		for (Node n : graph.getNodes().keySet()) {
-			System.out.println(n);
-			System.out.println("ASAP: " + asap.slot(n));
-			System.out.println("ALAP: " + alap.slot(n));
-			System.out.println("Mobility: " + (alap.slot(n).lbound - asap.slot(n).lbound));
-			mob.put(n,
-					new Interval(
-							asap.slot(n).lbound,
-							alap.slot(n).ubound));
+
+	/**
+	 * Compute the forces of the nodes dirty[from..to-1] and their lowest force time step.
+	 */
+	private void evaluate(int from, int to) {
+		Reach reach = lookahead ? new Reach(frames.size()) : null;
+		for (int d = from; d < to; d++) {
+			int v = dirty[d];
+			computeForces(v, reach);
+
+			// keep track of lowest force time step of this node
+			int asap = frames.asap(v), alap = frames.alap(v);
+			double minForce = Double.MAX_VALUE;
+			int minForceTime = -1;
+			for (int i = 0; i <= alap - asap; i++) {
+				double forceSum = selfForces[v][i] + predForces[v][i] + succForces[v][i];
+				if (forceSum < minForce) {
+					minForce = forceSum;
+					minForceTime = asap + i;
+				}
+			}
+			bestForce[v] = minForce;
+			bestTime[v] = minForceTime;
 		}
-		
-		return mob;
 	}
-	
-
-	/**
-	 * 
-	 * TODO:It's wrong if
-	 * one operation has multiple Resources-> Every resource has the same prob.
-	 * TODO:check if ASAP and ALAP are correkt if for ex.Mul->Res1,Res2
-	 * 
-	 * @param graph
-	 * @return
-	 */
-	/*@SuppressWarnings("unchecked")
-	private Map<RT, HashMap<Integer, Float>> calcResourceUsage(final Graph graph) {
-		HashMap<RT, HashMap<Integer, Float>> resUsage = new HashMap<RT, HashMap<Integer, Float>>();
-		for (Node n : graph.getNodes().keySet()) {
-			System.out.println("\nRESOURCEUSAGE for Node: " + n + " on " + resource_graph.getRes(n.getRT()));
+
+	/**
+	 * Fork/join task splitting a range of the dirty list. Every node only writes its own
+	 * cache entries, thus the tasks do not interfere.
+	 */
+	@SuppressWarnings("serial")
+	private final class Evaluation extends RecursiveAction {
+		private final int from, to;
+
+		Evaluation(int from, int to) {
+			this.from = from;
+			this.to = to;
 		}
-		// System.out.println("Resource " + resource + " on RT: " +
-		// resource_graph.getAllRes().get(resource));
-		for (Node n : graph.getNodes().keySet()) {
-			/**
-			 * 
-			 * if Node n works on one of the resources
-			 * 
-			 *
-			HashMap<Integer, Float> timeUsage = (HashMap<Integer, Float>) probabilities.get(n).clone();
-			/**
-			 * 
-			 * Add the probabilty of timeUsage of Node n to the resource Usage
-			 * 
-			 *
-			if (!resUsage.containsKey(n.getRT())) {
-				resUsage.put(n.getRT(), timeUsage);
-			} else {
-				HashMap<Integer, Float> currentTimeUsage = resUsage.get(n.getRT());
-				/**
-				 * 
-				 * Do this for each timestep available in the Nodes Execution Probabilities
-				 * 
-				 * TODO: Possibly can be simplified, when each Node hast every timestep in
-				 * 
-				 * the Probabiliies Map. Currently each Node just has the prob. for his
-				 * mobilityInterval
-				 * 
-				 *
-				timeUsage.forEach((t, prob) -> currentTimeUsage.merge(t, prob, (v1, v2) -> v1 + v2));
-				resUsage.put(n.getRT(), currentTimeUsage);
+
+		@Override
+		protected void compute() {
+			if (to - from <= THRESHOLD) {
+				evaluate(from, to);
+				return;
 			}
+			int mid = (from + to) >>> 1;
+			invokeAll(new Evaluation(from, mid), new Evaluation(mid, to));
 		}
-		return resUsage;
-	}*/
+	}
 
-	
 	/**
-	 * TODO: It's wrong if one operation has multiple Resources -> Every resource has the same prob.
-	 * TODO: check if ASAP and ALAP are correkt if for ex. Mul -> Res1, Res2
-	 * @param graph
-	 * @return
+	 * Compute the invalidated forces of node v for all time steps t in [tau_asap(v), tau_alap(v)].
+	 * @param v - index of the node
+	 * @param reach - scratch space of the transitive forces, null without lookahead
 	 */
-	@SuppressWarnings("unchecked")
-	private Map<String, HashMap<Integer, Float>> calcResourceUsage(final Graph graph) {
-		HashMap<String, HashMap<Integer, Float>> resUsage = new HashMap<String, HashMap<Integer, Float>>();
-		for (Node n : graph.getNodes().keySet()) {
-			System.out.println("\nRESOURCEUSAGE for Node: " + n + " on " + resource_graph.getRes(n.getRT()));
+	private void computeForces(int v, Reach reach) {
+		int asap = frames.asap(v), alap = frames.alap(v);
+		if (selfForces[v] == null || asap != cachedAsap[v] || alap != cachedAlap[v]) {
+			selfForces[v] = new double[alap - asap + 1];
+			predForces[v] = new double[alap - asap + 1];
+			succForces[v] = new double[alap - asap + 1];
+			cachedAsap[v] = asap;
+			cachedAlap[v] = alap;
+			selfDirty[v] = predDirty[v] = succDirty[v] = true;
 		}
-		
-		for (String resource : resource_graph.getAllRes().keySet()) {
-			System.out.println("Resource " + resource + " on RT: " + resource_graph.getAllRes().get(resource));
-			for (Node n : graph.getNodes().keySet()) {
-				/**
-				 * if Node n works on one of the resources
-				 */
-				if (resource_graph.getRes(n.getRT()).contains(resource)) {
-					HashMap<Integer, Float> timeUsage = (HashMap<Integer, Float>) probabilities.get(n).clone();
-					/**
-					 * Add the probabilty of timeUsage of Node n to the resource Usage
-					 */
-					if (!resUsage.containsKey(resource)) {
-						resUsage.put(resource, timeUsage);
-					} else {
-						HashMap<Integer, Float> currentTimeUsage = resUsage.get(resource);
-						/**
-						 * Do this for each timestep available in the Nodes Execution Probabilities
-						 * TODO: Possibly can be simplified, when each Node hast every timestep in
-						 * the Probabiliies Map. Currently each Node just has the prob. for his mobilityInterval
-						 */
-						timeUsage.forEach((t, prob) -> currentTimeUsage.merge(t, prob, (v1, v2) -> v1 + v2));
-						
-						resUsage.put(resource, currentTimeUsage);
-					}
+		int delay = index.delay(v);
+
+		for (int time = asap; time <= alap; time++) {
+			int i = time - asap;
+			// Self force
+			if (selfDirty[v])
+				selfForces[v][i] = frameForce(v, time, time);
+			if (reach != null) {
+				if (predDirty[v])
+					predForces[v][i] = reach.predecessors(v, time);
+				if (succDirty[v])
+					succForces[v][i] = reach.successors(v, time);
+				continue;
+			}
+			// Predecessor forces - planning v at time bounds the latest start of each predecessor
+			if (predDirty[v]) {
+				double predForceSum = 0;
+				for (int k = index.predBegin(v); k < index.predEnd(v); k++) {
+					int p = index.pred(k);
+					int latest = time - index.delay(p);
+					if (latest < frames.alap(p))
+						predForceSum += frameForce(p, frames.asap(p), latest);
+				}
+				predForces[v][i] = predForceSum;
+			}
+			// Successor forces - planning v at time bounds the earliest start of each successor
+			if (succDirty[v]) {
+				double succForceSum = 0;
+				for (int k = index.succBegin(v); k < index.succEnd(v); k++) {
+					int s = index.succ(k);
+					int earliest = time + delay;
+					if (earliest > frames.asap(s))
+						succForceSum += frameForce(s, earliest, frames.alap(s));
 				}
+				succForces[v][i] = succForceSum;
 			}
 		}
-		return resUsage;
+		selfDirty[v] = predDirty[v] = succDirty[v] = false;
 	}
-	
+
 	/**
-	 * Calculate the Probability for each timestep a given Operation is executed in those timesteps
-	 * @return A Allocation of probability that a given Node is executed for each timestep the given Node can possibly been executed.
+	 * Force of narrowing the frame of node v to [asap, alap], see DistributionGraph.force().
+	 * @param v - index of the node
+	 * @param asap - new earliest start time
+	 * @param alap - new latest start time
+	 * @return the force
 	 */
-	private Map<Node, HashMap<Integer, Float>> calcProbabilites() {
+	private double frameForce(int v, int asap, int alap) {
+		return distribution.force(v, frames.asap(v), frames.alap(v), asap, alap, lookahead ? LOOKAHEAD : 0);
+	}
+
+	/**
+	 * Transitive predecessor and successor forces of a tentative placement. The bound the
+	 * placement puts on the frames is pushed through the graph as far as it narrows a frame,
+	 * every narrowed frame adds its force. One instance per evaluating thread.
+	 */
+	private final class Reach {
+		/**
+		 * Tentative bound of each node reached in the current pass
+		 */
+		private final int[] bound;
 		/**
-		 * Create Empty Maps, for Node <-> (timestep <-> probability) and
-		 * timestep <-> probability
+		 * Pass in which the bound of a node was set
 		 */
-		Map<Node, HashMap<Integer, Float>> probs = new HashMap<Node, HashMap<Integer, Float>>();
-		HashMap<Integer, Float> timeProb;
-		/*
-		 * iterate over every Node
+		private final int[] mark;
+		/**
+		 * Pass in which a node is on the work list, 0 if it is not
+		 */
+		private final int[] queued;
+		/**
+		 * Work list and the nodes reached in the current pass
 		 */
-		for (Node n : mobilityIntervals.keySet()) {
-			timeProb = new HashMap<Integer, Float>();
-			Interval range = mobilityIntervals.get(n);
-			/**
-			 * Calculate the mobility (on how many different timesteps can an operation be executed)
-			 */
-			int mobility = range.ubound - (range.lbound + n.getDelay()-1);
-			
-			float probability;
-			/**
-			 * For each Mobility the probability is calculated over the sum of 1/(mobility+1)
-			 */
-			for (Interval delay = new Interval(range.lbound, range.lbound + n.getDelay()-1); delay.ubound <= range.ubound; delay = delay.align_ubound(delay.ubound+1)) {
-				for (int i = delay.lbound; i <= delay.ubound; i++) {
-					probability = timeProb.containsKey(i) ? timeProb.get(i) : 0f;
-					/**
-					 * When the next possible Interval (in the mobility interval)
-					 * contains the operation, the Probability gets increased
-					 */
-					probability += (float) (1./(mobility+1));
-					timeProb.put(i, probability);
+		private final int[] work, reached;
+		private int pass;
+
+		Reach(int n) {
+			bound = new int[n];
+			mark = new int[n];
+			queued = new int[n];
+			work = new int[n];
+			reached = new int[n];
+		}
+
+		/**
+		 * @return the force of bounding the latest start of all transitive predecessors by
+		 * planning v at time
+		 */
+		double predecessors(int v, int time) {
+			pass++;
+			int top = 0, cnt = 0;
+			bound[v] = time;
+			mark[v] = pass;
+			work[top++] = v;
+			while (top > 0) {
+				int u = work[--top];
+				queued[u] = 0;
+				for (int k = index.predBegin(u); k < index.predEnd(u); k++) {
+					int p = index.pred(k);
+					int latest = bound[u] - index.delay(p);
+					if (latest >= (mark[p] == pass ? bound[p] : frames.alap(p)) || frames.isFixed(p))
+						continue;
+					if (mark[p] != pass) {
+						mark[p] = pass;
+						reached[cnt++] = p;
+					}
+					bound[p] = latest;
+					if (queued[p] != pass) {
+						queued[p] = pass;
+						work[top++] = p;
+					}
+				}
+			}
+			double force = 0;
+			for (int r = 0; r < cnt; r++)
+				force += frameForce(reached[r], frames.asap(reached[r]), bound[reached[r]]);
+			return force;
+		}
+
+		/**
+		 * @return the force of bounding the earliest start of all transitive successors by
+		 * planning v at time
+		 */
+		double successors(int v, int time) {
+			pass++;
+			int top = 0, cnt = 0;
+			bound[v] = time;
+			mark[v] = pass;
+			work[top++] = v;
+			while (top > 0) {
+				int u = work[--top];
+				queued[u] = 0;
+				int earliest = bound[u] + index.delay(u);
+				for (int k = index.succBegin(u); k < index.succEnd(u); k++) {
+					int s = index.succ(k);
+					if (earliest <= (mark[s] == pass ? bound[s] : frames.asap(s)) || frames.isFixed(s))
+						continue;
+					if (mark[s] != pass) {
+						mark[s] = pass;
+						reached[cnt++] = s;
+					}
+					bound[s] = earliest;
+					if (queued[s] != pass) {
+						queued[s] = pass;
+						work[top++] = s;
+					}
 				}
 			}
-			probs.put(n, timeProb);
+			double force = 0;
+			for (int r = 0; r < cnt; r++)
+				force += frameForce(reached[r], bound[reached[r]], frames.alap(reached[r]));
+			return force;
 		}
-		//TODO: When lmax is defined, the probs Map need to get converted into a map with timestep <-> (Node <-> prob)
-		//to get the pobabilities (0) for timesteps, that are not contained in the possible scheduled Intervals of a
-		//operation
-		return probs;
 	}
-	
+
+	@Override
+	public String toString() {
+		return lookahead ? "FDS_Lookahead" : "FDS";
+	}
+
 	public void probDebug() {
-		for (Node n : mobilityIntervals.keySet()) {
-			System.out.print("Node " + n.id + ", Mobility: " + mobilityIntervals.get(n) + "\n");
+		for (Node n : frames.nodes()) {
+			System.out.print("Node " + n.id + ", Mobility: " + frames.mobility(n) + "\n");
 		}
-		
-		for (Node n : probabilities.keySet()) {
-			System.out.println("\nNode " + n);
-			for (Integer i : probabilities.get(n).keySet()) {
-				System.out.println("Timestep: " + i + " Prob: " + probabilities.get(n).get(i));
-			}
-		}
-		
-		
-		for (String res : resource_usage.keySet()) {
+
+		for (RT res : RT.values()) {
 			System.out.println("Resourge usage prob. on res: " + res);
-			for (Integer t : resource_usage.get(res).keySet()) {
-				System.out.println("In timestep " + t + ": " + resource_usage.get(res).get(t));
+			for (int t = 0; t < distribution.length(); t++) {
+				if (distribution.get(res, t) != 0)
+					System.out.println("In timestep " + t + ": " + distribution.get(res, t));
 			}
 		}
 	}
 
-}
\ No newline at end of file
+}
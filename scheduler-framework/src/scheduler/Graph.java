@@ -2,8 +2,7 @@ package scheduler;
 
 import java.util.Iterator;
 import java.util.HashMap;
-import java.util.Set;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Formatter;
 
 public class Graph implements Iterable<Node> {
@@ -91,65 +90,34 @@ public class Graph implements Iterable<Node> {
 	}
 	*/
 	
-	public Integer dijkstra(Node src) {
-		HashMap<Node,Integer> dist = new HashMap<Node, Integer>();
-		HashMap<Node, Node> prev = new HashMap<Node, Node>();
-		Set<Node> Q = new HashSet<Node>();
-		for (Node nd : nodes.keySet()) {
-			dist.put(nd, Integer.MAX_VALUE);
-			prev.put(nd, null);
-			Q.add(nd);
-		}
-		for (Node sn : src.successors()) {
-			Integer a = 1;
-			if (a < dist.get(sn)) {
-				dist.put(sn, a);
-				prev.put(sn, src);
-			}
-		}
-		while (Q.size() > 0) {
-			Node u = find_node(dist, Q, src);
-			if ((u == null)) {
-				break;
-			}
-			if (!Q.remove(u)) {
-				System.out.printf("Not found!%n");
-				System.exit(-1);
-			}
-			for (Node sn : u.successors()) {
-				Integer a = dist.get(u) + 1;
-				if (a < dist.get(sn)) {
-					dist.put(sn, a);
-					prev.put(sn, u);
-				}
-			}
-		}
-		return dist.get(src);
+	/**
+	 * Check the graph for cycles within one iteration in O(V+E), each cycle found is traced as a
+	 * warning. Use validation() to get all of them.
+	 * @return a node on a cycle, null if there is none
+	 */
+	public Node validate() {
+		Trace.log(Trace.Component.GRAPH, Trace.Level.INFO, "Validating graph");
+		CycleAnalysis ca = validation();
+		for (List<Node> c : ca.cycles())
+			Trace.log(Trace.Component.GRAPH, Trace.Level.WARN, "Cycle within one iteration: %s", c);
+		return ca.valid() ? null : ca.cycles().get(0).get(0);
 	}
 
-	public Node find_node(HashMap<Node, Integer>dist, Set<Node> Q, Node src) {
-		Integer d = Integer.MAX_VALUE;
-		Node dest = null;
-		for (Node nd : Q) {
-			if (dist.get(nd).compareTo(d) < 0) {
-				d = dist.get(nd);
-				dest = nd;
-			}
-		}
-		return dest;
+	/**
+	 * Cycle and recurrence analysis of this graph.
+	 * @return the cycles within one iteration and the recurrences over loop-carried edges
+	 */
+	public CycleAnalysis validation() {
+		return new CycleAnalysis(new GraphIndex(this));
 	}
 
-	public Node validate() {
-		System.out.printf("Validating graph%n");
-		Integer s;
-		for (Node nd: nodes.keySet()) {
-			if (nd.root()) {
-				s = dijkstra(nd);
-				if (s.compareTo(Integer.MAX_VALUE) != 0)
-					return nd;
-			}
-		}
-		return null;
+	/**
+	 * Critical path and slack analysis of this graph.
+	 * @param lmax - maximum schedule length, the critical path length is used if lmax &lt;= 0
+	 * @return earliest and latest start, slack and criticality of every node
+	 */
+	public SlackAnalysis analyze(int lmax) {
+		return new SlackAnalysis(new GraphIndex(this), lmax);
 	}
 
 	/**
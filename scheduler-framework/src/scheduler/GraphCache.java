@@ -0,0 +1,229 @@
+package scheduler;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Binary cache of parsed DOT files.
+ * <p>
+ * load() keeps a sidecar file (SUFFIX appended to the name of the DOT file) holding the
+ * parsed graph. The sidecar is valid as long as the size, modification time and hash of the
+ * DOT file match the values recorded in its header. If only the modification time differs
+ * but the content hash still matches (e.g. after a fresh checkout) the recorded time is
+ * updated. Otherwise the DOT file is parsed again and the sidecar is rewritten.
+ * <p>
+ * Layout of the sidecar (all ints big-endian):
+ * <pre>
+ * int  MAGIC, VERSION
+ * long size, mtime, hash       of the DOT file
+ * int  n, m                    number of nodes and edges
+ * int  succStart[n+1]          CSR successors of each node
+ * int  succ[m], distance[m]    successor and iteration distance of each edge
+ * int  idStart[n+1]            offsets of the ids into the string table
+ * byte rt[n]                   RT ordinal of each node
+ * byte ids[]                   UTF-8 string table of the node ids
+ * </pre>
+ * The sidecar is read through FileChannel.map; the only objects created are the nodes and
+ * their ids. It always holds all edges; loop-carried edges are dropped on loading unless
+ * readBackEdges is set.
+ */
+public class GraphCache {
+	public static final String SUFFIX = ".cache";
+	private static final int MAGIC = 0x53474331;		// "SGC1"
+	private static final int VERSION = 2;
+	private static final int HEADER = 4 + 4 + 8 + 8 + 8 + 4 + 4;
+
+	private GraphCache() {
+	}
+
+	/**
+	 * Load a graph from the sidecar of a DOT file, creating or refreshing the sidecar if
+	 * necessary. If the sidecar cannot be written the parsed graph is returned anyway.
+	 * @param fn - name of the DOT file
+	 * @param readBackEdges - see Dot_reader
+	 * @return the graph
+	 * @throws DotParseException on syntax errors in the DOT file
+	 * @throws UncheckedIOException if the DOT file cannot be read
+	 */
+	public static Graph load(String fn, boolean readBackEdges) {
+		Path dot = Paths.get(fn);
+		Path cache = Paths.get(fn + SUFFIX);
+		try {
+			long size = Files.size(dot);
+			long mtime = Files.getLastModifiedTime(dot).toMillis();
+			if (Files.isRegularFile(cache)) {
+				Graph graph = read(cache, size, mtime, dot, readBackEdges);
+				if (graph != null)
+					return graph;
+			}
+			Graph graph = new Dot_reader(true).parse(fn);
+			try {
+				write(graph, cache, size, mtime, hash(dot));
+			} catch (IOException e) {
+				return readBackEdges ? graph : new Dot_reader(false).parse(fn);
+			}
+			return read(cache, size, mtime, dot, readBackEdges);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not read " + fn, e);
+		}
+	}
+
+	/**
+	 * @return the graph stored in the cache, null if the cache does not match the DOT file
+	 */
+	private static Graph read(Path cache, long size, long mtime, Path dot, boolean readBackEdges)
+			throws IOException {
+		try (FileChannel channel = FileChannel.open(cache, StandardOpenOption.READ)) {
+			if (channel.size() < HEADER)
+				return null;
+			MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buf.getInt(0) != MAGIC || buf.getInt(4) != VERSION || buf.getLong(8) != size)
+				return null;
+			if (buf.getLong(16) != mtime) {
+				if (buf.getLong(24) != hash(dot))
+					return null;
+				touch(cache, mtime);
+			}
+			return read(buf, readBackEdges);
+		}
+	}
+
+	/**
+	 * Record a new modification time of the DOT file in the cache, if the cache is writable.
+	 */
+	private static void touch(Path cache, long mtime) {
+		try (FileChannel channel = FileChannel.open(cache, StandardOpenOption.WRITE)) {
+			ByteBuffer buf = ByteBuffer.allocate(8).putLong(mtime);
+			buf.flip();
+			channel.write(buf, 16);
+		} catch (IOException e) {
+			// the hash is checked again on the next load
+		}
+	}
+
+	/**
+	 * Rebuild the graph from a valid cache.
+	 * @return the graph, null if the cache is truncated
+	 */
+	private static Graph read(ByteBuffer buf, boolean readBackEdges) {
+		int n = buf.getInt(32);
+		int m = buf.getInt(36);
+		int succStart = HEADER;
+		int succ = succStart + 4 * (n + 1);
+		int dist = succ + 4 * m;
+		int idStart = dist + 4 * m;
+		int rt = idStart + 4 * (n + 1);
+		int ids = rt + n;
+		if (n < 0 || m < 0 || HEADER + 8L * (n + 1) + 8L * m + n > buf.capacity()
+				|| ids + buf.getInt(idStart + 4 * n) != buf.capacity())
+			return null;
+
+		RT[] types = RT.values();
+		Graph graph = new Graph();
+		Node[] nodes = new Node[n];
+		byte[] tmp = new byte[64];
+		for (int v = 0; v < n; v++) {
+			int from = buf.getInt(idStart + 4 * v), to = buf.getInt(idStart + 4 * v + 4);
+			if (to - from > tmp.length)
+				tmp = new byte[to - from];
+			buf.get(ids + from, tmp, 0, to - from);
+			nodes[v] = graph.add(new Node(new String(tmp, 0, to - from, StandardCharsets.UTF_8), types[buf.get(rt + v)]));
+		}
+		for (int v = 0; v < n; v++) {
+			int end = buf.getInt(succStart + 4 * v + 4);
+			for (int k = buf.getInt(succStart + 4 * v); k < end; k++) {
+				int d = buf.getInt(dist + 4 * k);
+				if (d == 0 || readBackEdges)
+					graph.link(nodes[v], nodes[buf.getInt(succ + 4 * k)], d);
+			}
+		}
+		return graph;
+	}
+
+	/**
+	 * Write the graph to the cache. The file is replaced atomically, thus concurrent loads of
+	 * the same graph see either the old or the new cache.
+	 */
+	private static void write(Graph graph, Path cache, long size, long mtime, long hash) throws IOException {
+		int n = graph.size();
+		Node[] nodes = new Node[n];
+		Map<Node, Integer> index = new HashMap<Node, Integer>(2 * n);
+		byte[][] ids = new byte[n][];
+		int m = 0, strings = 0;
+		for (Node nd : graph) {
+			index.put(nd, index.size());
+			nodes[index.size() - 1] = nd;
+		}
+		for (int v = 0; v < n; v++) {
+			ids[v] = nodes[v].id.getBytes(StandardCharsets.UTF_8);
+			strings += ids[v].length;
+			m += nodes[v].allSuccessors().size();
+		}
+
+		ByteBuffer buf = ByteBuffer.allocate(HEADER + 4 * (n + 1) + 8 * m + 4 * (n + 1) + n + strings);
+		buf.putInt(MAGIC).putInt(VERSION).putLong(size).putLong(mtime).putLong(hash).putInt(n).putInt(m);
+		int e = 0;
+		for (int v = 0; v < n; v++) {
+			buf.putInt(e);
+			e += nodes[v].allSuccessors().size();
+		}
+		buf.putInt(e);
+		int dist = buf.position() + 4 * m;
+		for (int v = 0; v < n; v++) {
+			for (Map.Entry<Node, Integer> edge : nodes[v].allSuccessors().entrySet()) {
+				buf.putInt(dist, edge.getValue());
+				buf.putInt(index.get(edge.getKey()));
+				dist += 4;
+			}
+		}
+		buf.position(dist);
+		int offset = 0;
+		for (int v = 0; v < n; v++) {
+			buf.putInt(offset);
+			offset += ids[v].length;
+		}
+		buf.putInt(offset);
+		for (int v = 0; v < n; v++)
+			buf.put((byte) nodes[v].getRT().ordinal());
+		for (int v = 0; v < n; v++)
+			buf.put(ids[v]);
+		buf.flip();
+
+		Path tmp = Files.createTempFile(cache.toAbsolutePath().getParent(), cache.getFileName().toString(), ".tmp");
+		try {
+			try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+				while (buf.hasRemaining())
+					channel.write(buf);
+			}
+			Files.move(tmp, cache, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
+
+	/**
+	 * @return 64 bit FNV-1a hash of the content of the file
+	 */
+	private static long hash(Path file) throws IOException {
+		long h = 0xcbf29ce484222325L;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			while (buf.hasRemaining()) {
+				h ^= buf.get() & 0xff;
+				h *= 0x100000001b3L;
+			}
+		}
+		return h;
+	}
+}
@@ -0,0 +1,382 @@
+package scheduler;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, int-indexed snapshot of a Graph.
+ * <p>
+ * Every node gets a dense index in 0..size()-1. If the edges within one iteration (edge
+ * weight 0) are acyclic the indices are a topological order of these edges. Edges are held in
+ * compressed sparse row form, split into intra-iteration edges and loop-carried edges (edge
+ * weight &gt; 0) with their iteration distance. Iterating over the edges of a node does not
+ * allocate:
+ * <pre>
+ * for (int k = gi.succBegin(v); k &lt; gi.succEnd(v); k++)
+ *     visit(gi.succ(k));
+ * </pre>
+ * Later changes to the Graph are not reflected by an existing index.
+ */
+public class GraphIndex {
+	/**
+	 * Node of each index
+	 */
+	private final Node[] nodes;
+	/**
+	 * Maps each node to its index
+	 */
+	private final Map<Node, Integer> index;
+	/**
+	 * Resource type ordinal, delay, initiation interval and weight of each node
+	 */
+	private final int[] rt, delay, initiation;
+	private final double[] weight;
+	/**
+	 * Intra-iteration successors and predecessors in CSR form
+	 */
+	private final int[] succStart, succ, predStart, pred;
+	/**
+	 * Loop-carried successors and predecessors in CSR form with their iteration distance
+	 */
+	private final int[] carriedSuccStart, carriedSucc, carriedSuccDist;
+	private final int[] carriedPredStart, carriedPred, carriedPredDist;
+	/**
+	 * true iff the intra-iteration edges are acyclic
+	 */
+	private final boolean acyclic;
+
+	/**
+	 * @param graph - the graph to index
+	 */
+	public GraphIndex(final Graph graph) {
+		int n = graph.size();
+		nodes = new Node[n];
+		index = new HashMap<Node, Integer>(2 * n);
+
+		// Kahn's algorithm to number the nodes in topological order
+		Map<Node, Integer> indeg = new HashMap<Node, Integer>(2 * n);
+		Deque<Node> ready = new ArrayDeque<Node>();
+		for (Node nd : graph) {
+			int d = nd.predecessors().size();
+			indeg.put(nd, d);
+			if (d == 0)
+				ready.add(nd);
+		}
+		int next = 0;
+		while (!ready.isEmpty()) {
+			Node nd = ready.poll();
+			index.put(nd, next);
+			nodes[next++] = nd;
+			for (Node s : nd.successors()) {
+				int d = indeg.get(s) - 1;
+				indeg.put(s, d);
+				if (d == 0)
+					ready.add(s);
+			}
+		}
+		acyclic = next == n;
+		if (!acyclic) {
+			// nodes on or behind a cycle keep a stable order by their id
+			Node[] rest = new Node[n - next];
+			int cnt = 0;
+			for (Node nd : graph)
+				if (!index.containsKey(nd))
+					rest[cnt++] = nd;
+			Arrays.sort(rest, new Comparator<Node>() {
+				public int compare(Node a, Node b) {
+					return a.id.compareTo(b.id);
+				}
+			});
+			for (Node nd : rest) {
+				index.put(nd, next);
+				nodes[next++] = nd;
+			}
+		}
+
+		rt = new int[n];
+		delay = new int[n];
+		initiation = new int[n];
+		weight = new double[n];
+		succStart = new int[n + 1];
+		predStart = new int[n + 1];
+		carriedSuccStart = new int[n + 1];
+		carriedPredStart = new int[n + 1];
+		int edges = 0, carried = 0;
+		for (int v = 0; v < n; v++) {
+			Node nd = nodes[v];
+			rt[v] = nd.getRT().ordinal();
+			delay[v] = nd.getDelay();
+			initiation[v] = nd.getInitiation();
+			weight[v] = nd.getRT().weight;
+			for (Map.Entry<Node, Integer> e : nd.allSuccessors().entrySet()) {
+				if (e.getValue() == 0)
+					edges++;
+				else
+					carried++;
+			}
+		}
+		succ = new int[edges];
+		pred = new int[edges];
+		carriedSucc = new int[carried];
+		carriedSuccDist = new int[carried];
+		carriedPred = new int[carried];
+		carriedPredDist = new int[carried];
+
+		int e0 = 0, e1 = 0;
+		for (int v = 0; v < n; v++) {
+			succStart[v] = e0;
+			carriedSuccStart[v] = e1;
+			for (Map.Entry<Node, Integer> e : sorted(nodes[v].allSuccessors())) {
+				if (e.getValue() == 0) {
+					succ[e0++] = index.get(e.getKey());
+				} else {
+					carriedSucc[e1] = index.get(e.getKey());
+					carriedSuccDist[e1++] = e.getValue();
+				}
+			}
+		}
+		succStart[n] = e0;
+		carriedSuccStart[n] = e1;
+
+		e0 = 0;
+		e1 = 0;
+		for (int v = 0; v < n; v++) {
+			predStart[v] = e0;
+			carriedPredStart[v] = e1;
+			for (Map.Entry<Node, Integer> e : sorted(nodes[v].allPredecessors())) {
+				if (e.getValue() == 0) {
+					pred[e0++] = index.get(e.getKey());
+				} else {
+					carriedPred[e1] = index.get(e.getKey());
+					carriedPredDist[e1++] = e.getValue();
+				}
+			}
+		}
+		predStart[n] = e0;
+		carriedPredStart[n] = e1;
+	}
+
+	/**
+	 * Edges of a node ordered by the index of the adjacent node
+	 */
+	private List<Map.Entry<Node, Integer>> sorted(Map<Node, Integer> edges) {
+		List<Map.Entry<Node, Integer>> res = new ArrayList<Map.Entry<Node, Integer>>(edges.entrySet());
+		res.sort(new Comparator<Map.Entry<Node, Integer>>() {
+			public int compare(Map.Entry<Node, Integer> a, Map.Entry<Node, Integer> b) {
+				return index.get(a.getKey()) - index.get(b.getKey());
+			}
+		});
+		return res;
+	}
+
+	/**
+	 * @return number of nodes
+	 */
+	public int size() {
+		return nodes.length;
+	}
+
+	/**
+	 * @return number of intra-iteration edges
+	 */
+	public int edges() {
+		return succ.length;
+	}
+
+	/**
+	 * @return number of loop-carried edges
+	 */
+	public int carriedEdges() {
+		return carriedSucc.length;
+	}
+
+	/**
+	 * @return true iff the intra-iteration edges are acyclic, i.e. the indices are a
+	 * topological order
+	 */
+	public boolean isAcyclic() {
+		return acyclic;
+	}
+
+	/**
+	 * @param v - index of the node
+	 * @return the node with the given index
+	 */
+	public Node node(int v) {
+		return nodes[v];
+	}
+
+	/**
+	 * @return all nodes in index order
+	 */
+	public Node[] nodes() {
+		return nodes.clone();
+	}
+
+	/**
+	 * @param nd - node of interest
+	 * @return the index of the node, -1 if it is not part of the graph
+	 */
+	public int id(Node nd) {
+		Integer v = index.get(nd);
+		return v == null ? -1 : v;
+	}
+
+	/**
+	 * @param v - index of the node
+	 * @return the resource type of the node
+	 */
+	public RT rt(int v) {
+		return RT.values()[rt[v]];
+	}
+
+	/**
+	 * @param v - index of the node
+	 * @return the ordinal of the resource type of the node
+	 */
+	public int rtOrdinal(int v) {
+		return rt[v];
+	}
+
+	/**
+	 * @param v - index of the node
+	 * @return the delay of the node
+	 */
+	public int delay(int v) {
+		return delay[v];
+	}
+
+	/**
+	 * @param v - index of the node
+	 * @return the number of time steps the node occupies its resource
+	 */
+	public int initiation(int v) {
+		return initiation[v];
+	}
+
+	/**
+	 * @param v - index of the node
+	 * @return the weight of the node's resource type
+	 */
+	public double weight(int v) {
+		return weight[v];
+	}
+
+	/**
+	 * @param v - index of the node
+	 * @return first edge position of the intra-iteration successors of v
+	 */
+	public int succBegin(int v) {
+		return succStart[v];
+	}
+
+	/**
+	 * @param v - index of the node
+	 * @return edge position behind the intra-iteration successors of v
+	 */
+	public int succEnd(int v) {
+		return succStart[v + 1];
+	}
+
+	/**
+	 * @param k - edge position
+	 * @return index of the successor at the edge position
+	 */
+	public int succ(int k) {
+		return succ[k];
+	}
+
+	/**
+	 * @param v - index of the node
+	 * @return first edge position of the intra-iteration predecessors of v
+	 */
+	public int predBegin(int v) {
+		return predStart[v];
+	}
+
+	/**
+	 * @param v - index of the node
+	 * @return edge position behind the intra-iteration predecessors of v
+	 */
+	public int predEnd(int v) {
+		return predStart[v + 1];
+	}
+
+	/**
+	 * @param k - edge position
+	 * @return index of the predecessor at the edge position
+	 */
+	public int pred(int k) {
+		return pred[k];
+	}
+
+	/**
+	 * @param v - index of the node
+	 * @return first edge position of the loop-carried successors of v
+	 */
+	public int carriedSuccBegin(int v) {
+		return carriedSuccStart[v];
+	}
+
+	/**
+	 * @param v - index of the node
+	 * @return edge position behind the loop-carried successors of v
+	 */
+	public int carriedSuccEnd(int v) {
+		return carriedSuccStart[v + 1];
+	}
+
+	/**
+	 * @param k - edge position
+	 * @return index of the loop-carried successor at the edge position
+	 */
+	public int carriedSucc(int k) {
+		return carriedSucc[k];
+	}
+
+	/**
+	 * @param k - edge position
+	 * @return iteration distance of the loop-carried successor edge at the edge position
+	 */
+	public int carriedSuccDistance(int k) {
+		return carriedSuccDist[k];
+	}
+
+	/**
+	 * @param v - index of the node
+	 * @return first edge position of the loop-carried predecessors of v
+	 */
+	public int carriedPredBegin(int v) {
+		return carriedPredStart[v];
+	}
+
+	/**
+	 * @param v - index of the node
+	 * @return edge position behind the loop-carried predecessors of v
+	 */
+	public int carriedPredEnd(int v) {
+		return carriedPredStart[v + 1];
+	}
+
+	/**
+	 * @param k - edge position
+	 * @return index of the loop-carried predecessor at the edge position
+	 */
+	public int carriedPred(int k) {
+		return carriedPred[k];
+	}
+
+	/**
+	 * @param k - edge position
+	 * @return iteration distance of the loop-carried predecessor edge at the edge position
+	 */
+	public int carriedPredDistance(int k) {
+		return carriedPredDist[k];
+	}
+}
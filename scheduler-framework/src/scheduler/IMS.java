@@ -0,0 +1,290 @@
+package scheduler;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * Iterative modulo scheduler (B. R. Rau, 1994) for loop bodies with loop-carried edges.
+ * <p>
+ * The graph must be read with back edges (Dot_reader(true)); an edge with iteration
+ * distance d from u to v requires start(v) &gt;= start(u) + delay(u) - II * d. Starting at
+ * max(ResMII, RecMII) the initiation interval is increased until all operations fit into the
+ * modulo reservation table (MRT) of the RC resources within the scheduling budget. A
+ * resource instance starts one operation at a time and stays busy for the initiation interval
+ * of its type (see RT.initiation), a pipelined instance may start the next one in the following
+ * time step.
+ * <p>
+ * For a given II the operations are scheduled by decreasing height. An operation is placed at
+ * the first time step within [Estart, Estart + II - 1] with a free compatible instance. If
+ * there is none it is forced into the MRT and evicts the conflicting operations, as well as
+ * the successors whose dependencies it violates. Evicted operations are scheduled again.
+ */
+public class IMS extends Scheduler {
+	private final RC rc;
+	/**
+	 * Number of scheduling steps per operation before the II is increased
+	 */
+	private final int budgetRatio;
+
+	/**
+	 * @param rc - resource constraints
+	 */
+	public IMS(final RC rc) {
+		this(rc, 4);
+	}
+
+	/**
+	 * @param rc - resource constraints
+	 * @param budgetRatio - number of scheduling steps per operation before the II is increased
+	 */
+	public IMS(final RC rc, int budgetRatio) {
+		if (rc == null)
+			throw new IllegalArgumentException("IMS needs resource constraints");
+		this.rc = rc;
+		this.budgetRatio = Math.max(1, budgetRatio);
+	}
+
+	/**
+	 * @return the schedule of a single iteration, see modulo()
+	 */
+	@Override
+	public Schedule schedule(final Graph graph) {
+		ModuloSchedule ms = modulo(graph);
+		return ms == null ? null : ms.iteration();
+	}
+
+	/**
+	 * @param graph - the loop body with its loop-carried edges
+	 * @return the modulo schedule with the smallest II found, null if there is none
+	 */
+	public ModuloSchedule modulo(final Graph graph) {
+		newMetrics();
+		GraphIndex gi = new GraphIndex(graph);
+		int n = gi.size();
+		if (!gi.isAcyclic()) {
+			Trace.fail(Trace.Component.IMS, "Found cyclic dependencies within one iteration.");
+			return null;
+		}
+		String[] names = rc.names();
+		int[][] compatible = rc.compatible();
+		for (int v = 0; v < n; v++) {
+			if (compatible[gi.rtOrdinal(v)].length == 0) {
+				Trace.fail(Trace.Component.IMS, "No resource for %s of type %s", gi.node(v), gi.rt(v));
+				return null;
+			}
+		}
+
+		int resMII = resMII(gi, compatible, names.length);
+		int recMII = recMII(gi);
+		int total = 0;
+		for (int v = 0; v < n; v++)
+			total += gi.delay(v);
+		// a sequential schedule of all operations always fits
+		int maxII = Math.max(Math.max(resMII, recMII), total);
+		for (int ii = Math.max(1, Math.max(resMII, recMII)); ii <= maxII; ii++) {
+			metrics.inc(Metrics.Counter.ITERATIONS);
+			Trace.log(Trace.Component.IMS, Trace.Level.INFO, "II %d (ResMII %d, RecMII %d)", ii, resMII, recMII);
+			int[] instance = new int[n];
+			int[] start = attempt(gi, compatible, names.length, ii, instance);
+			if (start != null)
+				return new ModuloSchedule(gi, ii, resMII, recMII, start, instance, names);
+		}
+		Trace.fail(Trace.Component.IMS, "Found no modulo schedule.");
+		return null;
+	}
+
+	/**
+	 * Resource bound of the II. Every operation occupies its instance for its initiation
+	 * interval, thus the II is at least the largest initiation interval, and the operations of
+	 * each type have to share the instances supporting it.
+	 */
+	static int resMII(GraphIndex gi, int[][] compatible, int instances) {
+		int[] busy = new int[RT.values().length];
+		int mii = 0, total = 0;
+		for (int v = 0; v < gi.size(); v++) {
+			busy[gi.rtOrdinal(v)] += gi.initiation(v);
+			total += gi.initiation(v);
+			mii = Math.max(mii, gi.initiation(v));
+		}
+		for (int rt = 0; rt < busy.length; rt++)
+			if (busy[rt] > 0)
+				mii = Math.max(mii, (busy[rt] + compatible[rt].length - 1) / compatible[rt].length);
+		return Math.max(mii, (total + instances - 1) / instances);
+	}
+
+	/**
+	 * Recurrence bound of the II: the smallest II for which no cycle has a positive length
+	 * with edge lengths delay(u) - II * distance(u, v).
+	 */
+	static int recMII(GraphIndex gi) {
+		if (gi.carriedEdges() == 0)
+			return 0;
+		int lo = 0, hi = 0;
+		for (int v = 0; v < gi.size(); v++)
+			hi += gi.delay(v);
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (heights(gi, mid) == null)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+	/**
+	 * Height of each node for the given II: the longest path from the node's start to the end
+	 * of any node, with edge lengths delay(u) - II * distance(u, v).
+	 * @return the heights, null if the II admits a positive cycle
+	 */
+	static int[] heights(GraphIndex gi, int ii) {
+		int n = gi.size();
+		int[] h = new int[n];
+		for (int v = 0; v < n; v++)
+			h[v] = gi.delay(v);
+		// Bellman-Ford, one round is a pass in reverse topological order
+		for (int round = 0; round <= n; round++) {
+			boolean changed = false;
+			for (int v = n - 1; v >= 0; v--) {
+				int best = h[v];
+				for (int k = gi.succBegin(v); k < gi.succEnd(v); k++)
+					best = Math.max(best, gi.delay(v) + h[gi.succ(k)]);
+				for (int k = gi.carriedSuccBegin(v); k < gi.carriedSuccEnd(v); k++)
+					best = Math.max(best, gi.delay(v) - ii * gi.carriedSuccDistance(k) + h[gi.carriedSucc(k)]);
+				if (best != h[v]) {
+					h[v] = best;
+					changed = true;
+				}
+			}
+			if (!changed)
+				return h;
+		}
+		return null;
+	}
+
+	/**
+	 * Try to schedule all operations for the given II within the budget.
+	 * @param instance - receives the instance of each operation
+	 * @return the start times, null if the budget is exhausted
+	 */
+	private int[] attempt(GraphIndex gi, int[][] compatible, int instances, int ii, int[] instance) {
+		int n = gi.size();
+		final int[] height = heights(gi, ii);
+		if (height == null)
+			return null;
+
+		int[] start = new int[n];
+		int[] last = new int[n];			// previous start time of each operation
+		boolean[] scheduled = new boolean[n];
+		boolean[] tried = new boolean[n];
+		int[][] mrt = new int[ii][instances];
+		for (int[] row : mrt)
+			Arrays.fill(row, -1);
+
+		PriorityQueue<Integer> queue = new PriorityQueue<Integer>((a, b) -> height[a] != height[b] ? height[b] - height[a] : a - b);
+		for (int v = 0; v < n; v++)
+			queue.add(v);
+
+		int budget = budgetRatio * n;
+		while (!queue.isEmpty()) {
+			if (budget-- <= 0)
+				return null;
+			int v = queue.poll();
+			int d = gi.delay(v), busy = gi.initiation(v);
+			metrics.inc(Metrics.Counter.NODES_VISITED);
+
+			int estart = 0;
+			for (int k = gi.predBegin(v); k < gi.predEnd(v); k++) {
+				int p = gi.pred(k);
+				if (scheduled[p])
+					estart = Math.max(estart, start[p] + gi.delay(p));
+			}
+			for (int k = gi.carriedPredBegin(v); k < gi.carriedPredEnd(v); k++) {
+				int p = gi.carriedPred(k);
+				if (scheduled[p])
+					estart = Math.max(estart, start[p] + gi.delay(p) - ii * gi.carriedPredDistance(k));
+			}
+
+			// first conflict free slot
+			int t = -1, inst = -1;
+			for (int s = estart; s < estart + ii && t < 0; s++) {
+				for (int i : compatible[gi.rtOrdinal(v)]) {
+					if (free(mrt, i, s, busy)) {
+						t = s;
+						inst = i;
+						break;
+					}
+				}
+			}
+			if (t < 0) {
+				// force the operation in, evicting the operations on the least used instance
+				t = !tried[v] || estart > last[v] ? estart : last[v] + 1;
+				int fewest = Integer.MAX_VALUE;
+				for (int i : compatible[gi.rtOrdinal(v)]) {
+					int c = 0;
+					for (int k = 0; k < busy; k++)
+						if (mrt[(t + k) % ii][i] >= 0)
+							c++;
+					if (c < fewest) {
+						fewest = c;
+						inst = i;
+					}
+				}
+				for (int k = 0; k < busy; k++) {
+					int u = mrt[(t + k) % ii][inst];
+					if (u >= 0) {
+						unschedule(gi, mrt, u, start[u], instance[u], ii);
+						scheduled[u] = false;
+						queue.add(u);
+					}
+				}
+			}
+
+			start[v] = t;
+			last[v] = t;
+			tried[v] = true;
+			instance[v] = inst;
+			scheduled[v] = true;
+			for (int k = 0; k < busy; k++)
+				mrt[(t + k) % ii][inst] = v;
+
+			// evict successors whose dependencies are violated now
+			for (int k = gi.succBegin(v); k < gi.succEnd(v); k++) {
+				int s = gi.succ(k);
+				if (scheduled[s] && start[s] < t + d) {
+					unschedule(gi, mrt, s, start[s], instance[s], ii);
+					scheduled[s] = false;
+					queue.add(s);
+				}
+			}
+			for (int k = gi.carriedSuccBegin(v); k < gi.carriedSuccEnd(v); k++) {
+				int s = gi.carriedSucc(k);
+				if (s != v && scheduled[s] && start[s] < t + d - ii * gi.carriedSuccDistance(k)) {
+					unschedule(gi, mrt, s, start[s], instance[s], ii);
+					scheduled[s] = false;
+					queue.add(s);
+				}
+			}
+		}
+
+		int min = Integer.MAX_VALUE;
+		for (int v = 0; v < n; v++)
+			min = Math.min(min, start[v]);
+		for (int v = 0; v < n; v++)
+			start[v] -= min;
+		return start;
+	}
+
+	private static boolean free(int[][] mrt, int instance, int t, int busy) {
+		int ii = mrt.length;
+		for (int k = 0; k < busy; k++)
+			if (mrt[(t + k) % ii][instance] >= 0)
+				return false;
+		return true;
+	}
+
+	private static void unschedule(GraphIndex gi, int[][] mrt, int v, int t, int instance, int ii) {
+		for (int k = 0; k < gi.initiation(v); k++)
+			mrt[(t + k) % ii][instance] = -1;
+	}
+}
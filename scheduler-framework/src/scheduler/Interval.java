@@ -4,7 +4,8 @@ import java.util.Comparator;
 
 /**
  * This represents an Interval type living on Integer.
- * Objects of this class are immutable.
+ * Objects of this class are immutable. The schedulers compute with int bounds and only
+ * create objects of this class for the schedule.
  * Proudly lend from amidarsim.
  *
  * @author Michael Raitza
@@ -99,6 +100,8 @@ public final class Interval {
 	 * @return the new interval shifted by S.
 	 */
 	public Interval shift(Integer s) {
+		if (s == 0)
+			return this;
 		return new Interval(lbound + s, ubound + s);
 	}
 
@@ -0,0 +1,255 @@
+package scheduler;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Resource-constrained list scheduler.
+ * <p>
+ * Every operation is bound to one resource instance of the RC that supports its type when it
+ * starts, the instance stays busy for the initiation interval of the operation's type, i.e. a
+ * pipelined instance accepts the next operation while the previous one is still running. Among the ready
+ * operations (all predecessors finished) the one with the highest priority is started first.
+ * If several instances are free the one supporting the fewest types is used, keeping the
+ * versatile instances available.
+ * <p>
+ * The scheduler is event driven: time only advances to the next point at which an operation
+ * becomes ready or an instance becomes free. Ready operations are held in one heap per
+ * resource type, thus an operation that cannot be started is not looked at again before
+ * an instance of its type is released. With a fixed number of resource types and instances
+ * this runs in O((V+E) log V). Like ASAP only edges within one iteration are taken into
+ * account.
+ */
+public class LIST extends Scheduler {
+
+	/**
+	 * Priority function of the list scheduler
+	 */
+	public interface Priority {
+		/**
+		 * @param sa - slack analysis of the graph
+		 * @return the priority of each node by index, higher priorities are scheduled first
+		 */
+		double[] compute(SlackAnalysis sa);
+	}
+
+	/**
+	 * The standard priority functions
+	 */
+	public enum Priorities implements Priority {
+		/**
+		 * Nodes with less mobility (ALAP - ASAP) first
+		 */
+		MOBILITY {
+			public double[] compute(SlackAnalysis sa) {
+				double[] res = new double[sa.graph().size()];
+				for (int v = 0; v < res.length; v++)
+					res[v] = -sa.slack(v);
+				return res;
+			}
+		},
+		/**
+		 * Nodes with the longest path to a leaf first
+		 */
+		CRITICAL_PATH {
+			public double[] compute(SlackAnalysis sa) {
+				double[] res = new double[sa.graph().size()];
+				for (int v = 0; v < res.length; v++)
+					res[v] = sa.pathToLeaf(v);
+				return res;
+			}
+		},
+		/**
+		 * Nodes with the most direct successors first
+		 */
+		SUCCESSORS {
+			public double[] compute(SlackAnalysis sa) {
+				GraphIndex gi = sa.graph();
+				double[] res = new double[gi.size()];
+				for (int v = 0; v < res.length; v++)
+					res[v] = gi.succEnd(v) - gi.succBegin(v);
+				return res;
+			}
+		},
+		/**
+		 * Nodes with the lowest FDS self force of a start at their earliest time first, i.e. nodes
+		 * whose early start adds the least to the expected resource usage.
+		 */
+		FORCE {
+			public double[] compute(SlackAnalysis sa) {
+				GraphIndex gi = sa.graph();
+				TimeFrames frames = new TimeFrames(sa);
+				DistributionGraph dg = new DistributionGraph(frames, sa.lmax());
+				double[] res = new double[gi.size()];
+				for (int v = 0; v < res.length; v++) {
+					int asap = frames.asap(v), alap = frames.alap(v), d = gi.initiation(v);
+					double force = 0.0;
+					for (int i = asap; i <= alap + d - 1; i++) {
+						double p = DistributionGraph.probability(asap, asap, d, i)
+								- DistributionGraph.probability(asap, alap, d, i);
+						force += dg.get(gi.rtOrdinal(v), i) * p;
+					}
+					res[v] = -force;
+				}
+				return res;
+			}
+		}
+	}
+
+	private final RC rc;
+	private final Priority priority;
+	private final int lmax;
+
+	/**
+	 * @param rc - resource constraints
+	 */
+	public LIST(final RC rc) {
+		this(rc, Priorities.CRITICAL_PATH);
+	}
+
+	/**
+	 * @param rc - resource constraints
+	 * @param priority - priority function
+	 */
+	public LIST(final RC rc, Priority priority) {
+		this(rc, priority, 0);
+	}
+
+	/**
+	 * @param rc - resource constraints
+	 * @param priority - priority function
+	 * @param lmax - latency bound of the slack analysis the priorities are computed from. It is
+	 * not enforced. If lmax &lt;= 0 or lmax is below the critical path length the critical path
+	 * length is used.
+	 */
+	public LIST(final RC rc, Priority priority, int lmax) {
+		if (rc == null)
+			throw new IllegalArgumentException("LIST needs resource constraints");
+		this.rc = rc;
+		this.priority = priority;
+		this.lmax = lmax;
+	}
+
+	@Override
+	public Schedule schedule(final Graph graph) {
+		Metrics m = newMetrics();
+		GraphIndex gi = new GraphIndex(graph);
+		int n = gi.size();
+		if (!gi.isAcyclic()) {
+			Trace.fail(Trace.Component.LIST, "Found no node with all predecessors planned. Cyclic dependencies?");
+			return null;
+		}
+		long t0 = m.begin();
+		SlackAnalysis sa = new SlackAnalysis(gi, lmax);
+		if (!sa.feasible())
+			sa = new SlackAnalysis(gi, 0);
+		m.end(Metrics.Phase.MOBILITY, t0);
+		final double[] prio = priority.compute(sa);
+
+		// resource instances, and for each resource type its instances with the most
+		// specialised ones first
+		String[] names = rc.names();
+		int[][] compatible = rc.compatible();
+		for (int v = 0; v < n; v++) {
+			if (compatible[gi.rtOrdinal(v)].length == 0) {
+				Trace.fail(Trace.Component.LIST, "No resource for %s of type %s", gi.node(v), gi.rt(v));
+				return null;
+			}
+		}
+		int[] busyUntil = new int[names.length];		// first free time step of each instance
+
+		// ready operations per resource type, highest priority first
+		Comparator<Integer> byPriority = new Comparator<Integer>() {
+			public int compare(Integer a, Integer b) {
+				int c = Double.compare(prio[b], prio[a]);
+				return c != 0 ? c : a - b;
+			}
+		};
+		List<PriorityQueue<Integer>> ready = new ArrayList<PriorityQueue<Integer>>();
+		for (int i = 0; i < RT.values().length; i++)
+			ready.add(new PriorityQueue<Integer>(byPriority));
+		// operations whose predecessors are all started, by the time their last one finishes
+		PriorityQueue<Long> pending = new PriorityQueue<Long>();
+
+		int[] unplanned = new int[n];		// number of unstarted predecessors
+		int[] release = new int[n];			// end of the latest predecessor
+		for (int v = 0; v < n; v++) {
+			unplanned[v] = gi.predEnd(v) - gi.predBegin(v);
+			if (unplanned[v] == 0)
+				ready.get(gi.rtOrdinal(v)).add(v);
+		}
+
+		Schedule schedule = new Schedule();
+		int t = 0, planned = 0;
+		t0 = m.begin();
+		while (planned < n) {
+			m.inc(Metrics.Counter.ITERATIONS);
+			while (!pending.isEmpty() && (int) (pending.peek() >>> 32) <= t) {
+				int v = (int) (long) pending.poll();
+				ready.get(gi.rtOrdinal(v)).add(v);
+			}
+
+			// start the ready operation of highest priority that has a free instance
+			while (true) {
+				int best = -1, bestInstance = -1;
+				for (int rt = 0; rt < ready.size(); rt++) {
+					if (ready.get(rt).isEmpty())
+						continue;
+					int v = ready.get(rt).peek();
+					if (best >= 0 && byPriority.compare(v, best) > 0)
+						continue;
+					for (int i : compatible[rt]) {
+						if (busyUntil[i] <= t) {
+							best = v;
+							bestInstance = i;
+							break;
+						}
+					}
+				}
+				if (best < 0)
+					break;
+				ready.get(gi.rtOrdinal(best)).poll();
+				int d = gi.delay(best);
+				schedule.add(gi.node(best), new Interval(t, t + d - 1), names[bestInstance]);
+				if (Trace.on(Trace.Component.LIST, Trace.Level.DEBUG))
+					Trace.log(Trace.Component.LIST, Trace.Level.DEBUG, "%s at %d on %s", gi.node(best), t, names[bestInstance]);
+				busyUntil[bestInstance] = t + Math.max(gi.initiation(best), 1);
+				planned++;
+				m.inc(Metrics.Counter.NODES_VISITED);
+				m.add(Metrics.Counter.EDGES_VISITED, gi.succEnd(best) - gi.succBegin(best));
+				for (int k = gi.succBegin(best); k < gi.succEnd(best); k++) {
+					int s = gi.succ(k);
+					release[s] = Math.max(release[s], t + d);
+					if (--unplanned[s] == 0)
+						pending.add(((long) release[s] << 32) | s);
+				}
+			}
+			if (planned == n)
+				break;
+
+			// advance to the next event
+			int next = Integer.MAX_VALUE;
+			if (!pending.isEmpty())
+				next = (int) (pending.peek() >>> 32);
+			for (int i = 0; i < busyUntil.length; i++)
+				if (busyUntil[i] > t)
+					next = Math.min(next, busyUntil[i]);
+			t = Math.max(t + 1, next == Integer.MAX_VALUE ? t + 1 : next);
+		}
+		m.end(Metrics.Phase.SELECTION, t0);
+		return schedule;
+	}
+
+	/**
+	 * @return the priority function
+	 */
+	public Priority priority() {
+		return priority;
+	}
+
+	public String toString() {
+		return "LIST(" + priority + ")";
+	}
+}
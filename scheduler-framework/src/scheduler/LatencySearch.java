@@ -0,0 +1,277 @@
+package scheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Search for the smallest latency bound at which a time constrained scheduler meets a goal,
+ * e.g. a target cost or the units of an RC.
+ * <p>
+ * The critical path length is the lower bound of the search, the length of a sequential
+ * schedule (the sum of all delays) the default upper bound. Starting at the lower bound the
+ * latency bound is increased by galloping, lower + 2^i - 1, until a probe meets the goal. The
+ * gap to the largest failing bound below is then closed by probing evenly spaced bounds. The
+ * goal is assumed to be monotone in the latency bound; for a heuristic like FDS the result is
+ * the smallest probed bound that meets it.
+ * <p>
+ * Every round probes up to one bound per thread concurrently. A probe meeting the goal cancels
+ * the probes of larger bounds, they cannot win anymore. Schedulers implementing TimeConstrained
+ * share the graph index and the ASAP frames of one slack analysis between all probes (see
+ * SlackAnalysis.withLatency()) and are aborted as soon as they are cancelled or their partial
+ * schedule exceeds the goal. The result does not depend on the order in which the probes of a
+ * round finish.
+ */
+public class LatencySearch {
+
+	/**
+	 * What a schedule has to achieve
+	 */
+	public interface Goal {
+		/**
+		 * @param schedule - a complete schedule
+		 * @return true iff the schedule meets the goal
+		 */
+		boolean met(Schedule schedule);
+
+		/**
+		 * @param partial - a partial schedule, nodes are only added to it
+		 * @return true if no completion of the partial schedule can meet the goal
+		 */
+		default boolean exceeded(Schedule partial) {
+			return false;
+		}
+	}
+
+	/**
+	 * @param target - largest acceptable cost
+	 * @return the goal of a schedule costing at most target
+	 */
+	public static Goal cost(final double target) {
+		return new Goal() {
+			public boolean met(Schedule schedule) {
+				return schedule.cost() <= target;
+			}
+
+			public boolean exceeded(Schedule partial) {
+				return partial.cost() > target;
+			}
+		};
+	}
+
+	/**
+	 * @param rc - the available units
+	 * @return the goal of a schedule that can be bound to the units of rc (see Binding)
+	 */
+	public static Goal fits(final RC rc) {
+		final int[][] compatible = rc.compatible();
+		return new Goal() {
+			public boolean met(Schedule schedule) {
+				return Binding.bind(schedule, rc).feasible();
+			}
+
+			public boolean exceeded(Schedule partial) {
+				for (RT rt : RT.values())
+					if (partial.peak(rt) > compatible[rt.ordinal()].length)
+						return true;
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Outcome of a search
+	 */
+	public static final class Result {
+		/**
+		 * Critical path length of the graph
+		 */
+		public final int lowerBound;
+		/**
+		 * Smallest latency bound found to meet the goal
+		 */
+		public final int lmax;
+		/**
+		 * The schedule of the scheduler for lmax
+		 */
+		public final Schedule schedule;
+		/**
+		 * Number of probes and of those aborted or skipped because a smaller bound met the goal
+		 */
+		public final int probes, cancelled;
+
+		Result(int lowerBound, int lmax, Schedule schedule, int probes, int cancelled) {
+			this.lowerBound = lowerBound;
+			this.lmax = lmax;
+			this.schedule = schedule;
+			this.probes = probes;
+			this.cancelled = cancelled;
+		}
+
+		public String toString() {
+			return String.format("lmax %d (lower bound %d), %d probes, %d cancelled", lmax, lowerBound, probes, cancelled);
+		}
+	}
+
+	private final Schedulers.Factory factory;
+	private final RC rc;
+	private final Goal goal;
+	private final int threads;
+
+	/**
+	 * @param factory - creates the scheduler for a latency bound
+	 * @param rc - resource constraints passed to the factory, may be null
+	 * @param goal - what the schedule has to achieve
+	 * @param threads - number of concurrent probes
+	 */
+	public LatencySearch(Schedulers.Factory factory, RC rc, Goal goal, int threads) {
+		this.factory = factory;
+		this.rc = rc;
+		this.goal = goal;
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * Run of the scheduler for one latency bound
+	 */
+	private final class Probe implements Runnable {
+		final Graph graph;
+		final SlackAnalysis analysis;
+		final int lmax;
+		volatile boolean cancelled;
+		/**
+		 * Whether the probe stopped early because it was cancelled
+		 */
+		boolean aborted;
+		boolean met;
+		Schedule schedule;
+
+		Probe(Graph graph, SlackAnalysis analysis, int lmax) {
+			this.graph = graph;
+			this.analysis = analysis;
+			this.lmax = lmax;
+		}
+
+		public void run() {
+			if (cancelled) {
+				aborted = true;
+				return;
+			}
+			try {
+				Scheduler s = factory.create(rc, lmax);
+				if (s instanceof TimeConstrained && ((TimeConstrained) s).lmax() == lmax)
+					schedule = ((TimeConstrained) s).schedule(analysis.withLatency(lmax), p -> abort(p));
+				else
+					schedule = s.schedule(graph);
+				met = schedule != null && goal.met(schedule);
+			} catch (RuntimeException e) {
+				Trace.log(Trace.Component.SEARCH, Trace.Level.WARN, "lmax %d: %s", lmax, e);
+			}
+		}
+
+		private boolean abort(Schedule partial) {
+			if (cancelled)
+				aborted = true;
+			return cancelled || goal.exceeded(partial);
+		}
+	}
+
+	/**
+	 * @param graph - the dependency graph
+	 * @return the smallest latency bound up to a sequential schedule that meets the goal, null
+	 * if there is none
+	 */
+	public Result search(final Graph graph) {
+		return search(graph, 0);
+	}
+
+	/**
+	 * @param graph - the dependency graph
+	 * @param upper - largest latency bound to probe, the length of a sequential schedule if
+	 * upper &lt;= 0
+	 * @return the smallest latency bound up to upper that meets the goal, null if there is none
+	 */
+	public Result search(final Graph graph, int upper) {
+		GraphIndex gi = new GraphIndex(graph);
+		if (!gi.isAcyclic()) {
+			Trace.fail(Trace.Component.SEARCH, "Graph has cyclic dependencies within one iteration");
+			return null;
+		}
+		SlackAnalysis analysis = new SlackAnalysis(gi, 0);
+		int lower = analysis.criticalPathLength();
+		if (upper <= 0)
+			for (int v = 0; v < gi.size(); v++)
+				upper += gi.delay(v);
+		upper = Math.max(upper, lower);
+
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			int lo = lower - 1, hi = upper + 1;		// largest failing and smallest successful bound
+			Probe best = null;
+			int next = lower, gallop = 0;			// next galloping bound, lower + 2^gallop - 1
+			int probes = 0, cancelled = 0;
+			while (hi - lo > 1 && (best != null || next <= upper)) {
+				List<Integer> bounds = new ArrayList<Integer>();
+				if (best == null) {
+					while (bounds.size() < threads && next <= upper) {
+						bounds.add(next);
+						next = next == upper ? upper + 1 : (int) Math.min(upper, lower + (1L << ++gallop) - 1);
+					}
+				} else {
+					int k = Math.min(threads, hi - lo - 1);
+					for (int i = 1; i <= k; i++)
+						bounds.add(lo + (int) ((long) (hi - lo) * i / (k + 1)));
+				}
+
+				CompletionService<Probe> done = new ExecutorCompletionService<Probe>(pool);
+				List<Probe> round = new ArrayList<Probe>();
+				for (int b : bounds) {
+					Probe p = new Probe(graph, analysis, b);
+					round.add(p);
+					done.submit(p, p);
+				}
+				probes += round.size();
+				for (int i = 0; i < round.size(); i++) {
+					Probe p = done.take().get();
+					if (!p.met)
+						continue;
+					// larger bounds cannot win anymore
+					for (Probe q : round)
+						if (q.lmax > p.lmax)
+							q.cancelled = true;
+				}
+				for (Probe p : round)
+					if (p.aborted)
+						cancelled++;
+				for (Probe p : round) {
+					if (p.cancelled)
+						continue;
+					Trace.log(Trace.Component.SEARCH, Trace.Level.INFO, "lmax %d: %s", p.lmax, p.met ? "met" : "failed");
+					if (p.met && p.lmax < hi) {
+						hi = p.lmax;
+						best = p;
+					}
+				}
+				for (Probe p : round)
+					if (!p.cancelled && !p.met && p.lmax < hi)
+						lo = Math.max(lo, p.lmax);
+			}
+			if (best == null) {
+				Trace.fail(Trace.Component.SEARCH, "No latency bound from %d to %d meets the goal", lower, upper);
+				return null;
+			}
+			return new Result(lower, best.lmax, best.schedule, probes, cancelled);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+}
@@ -1,11 +1,18 @@
 package scheduler;
 
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
 public class Main {
 	
 	private static Graph g;
 	private static String arg0;
 
 	public static void main(String[] args) {
+		if (args.length > 0 && args[0].equals("batch")) {
+			Batch.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
 		//parse(args);
 		
 		defaultMain(args);
@@ -44,15 +51,30 @@ public class Main {
 		sched.draw("schedules/ALAP_Fixed_" + arg0.substring(arg0.lastIndexOf("/")+1));
 	}
 	
+	/**
+	 * Parses a graph file through the binary graph cache, exits on errors.
+	 */
+	private static Graph read(String fn) {
+		try {
+			return GraphCache.load(fn, false);
+		} catch (DotParseException e) {
+			System.err.printf("FATAL: %s: %s%n", fn, e.getMessage());
+		} catch (UncheckedIOException e) {
+			System.err.printf("FATAL: Could not read %s: %s%n", fn, e.getCause().getMessage());
+		}
+		System.exit(-1);
+		return null;
+	}
+
 	public static void parse(String[] args) {
 		RC rc = null;
 		if (args.length>1){
 			System.out.println("Reading resource constraints from "+args[1]+"\n");
 			rc = new RC();
 			rc.parse(args[1]);
+			System.out.println(rc.diagnose());
 		}
 		
-		Dot_reader dr = new Dot_reader(false);
 		if (args.length < 1) {
 			System.err.printf("Usage: scheduler dotfile%n");
 			System.exit(-1);
@@ -61,7 +83,7 @@ public class Main {
 			System.out.println();
 		}
 		
-		g = dr.parse(args[0]);
+		g = read(args[0]);
 		System.out.printf("%s%n", g.diagnose());
 		
 		arg0 = args[0];
@@ -73,9 +95,9 @@ public class Main {
 			System.out.println("Reading resource constraints from "+args[1]+"\n");
 			rc = new RC();
 			rc.parse(args[1]);
+			System.out.println(rc.diagnose());
 		}
 		
-		Dot_reader dr = new Dot_reader(false);
 		if (args.length < 1) {
 			System.err.printf("Usage: scheduler dotfile%n");
 			System.exit(-1);
@@ -84,7 +106,7 @@ public class Main {
 			System.out.println();
 		}
 		
-		Graph g = dr.parse(args[0]);
+		Graph g = read(args[0]);
 		System.out.printf("%s%n", g.diagnose());
 		
 		Scheduler s = new ASAP();
@@ -101,7 +123,15 @@ public class Main {
 		
 		sched.draw("schedules/ALAP_" + args[0].substring(args[0].lastIndexOf("/")+1));
 
-		s = new FDS(rc, 20);
-		s.schedule(g);
+		// smallest latency bound at which FDS fits the resources, without them the critical path length
+		LatencySearch.Goal goal = rc != null ? LatencySearch.fits(rc) : LatencySearch.cost(Double.MAX_VALUE);
+		LatencySearch.Result r = new LatencySearch((res, lmax) -> new FDS(res, lmax), rc, goal,
+				Runtime.getRuntime().availableProcessors()).search(g);
+		if (r == null)
+			return;
+		System.out.printf("%nFDS, %s%n%s%n", r, r.schedule.diagnose());
+		System.out.printf("cost = %s%n", r.schedule.cost());
+		
+		r.schedule.draw("schedules/FDS_" + args[0].substring(args[0].lastIndexOf("/")+1));
 	}
 }
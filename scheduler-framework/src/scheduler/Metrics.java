@@ -0,0 +1,206 @@
+package scheduler;
+
+import java.util.Locale;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Phase timers and counters of a single run of a scheduler or of the Dot_reader.
+ * <p>
+ * Metrics are off unless enabled with setEnabled(true) or -Dscheduler.metrics=true. A run
+ * decides once when it starts, then every timer and counter of a disabled run is a single
+ * branch on a final field. Timed phases are also committed as JFR events (scheduler.Phase)
+ * if a flight recording is running:
+ * <pre>
+ * long t = metrics.begin();
+ * ...
+ * metrics.end(Metrics.Phase.FORCES, t);
+ * metrics.add(Metrics.Counter.FORCE_EVALUATIONS, n);
+ * </pre>
+ * An instance is not thread safe, it is only written by the thread running the scheduler.
+ */
+public final class Metrics {
+
+	/**
+	 * Timed phases
+	 */
+	public enum Phase {
+		PARSE, MOBILITY, PROBABILITIES, RESOURCE_USAGE, FORCES, SELECTION
+	}
+
+	/**
+	 * Counted events
+	 */
+	public enum Counter {
+		ITERATIONS, FORCE_EVALUATIONS, SCHEDULE_CLONES, NODES_VISITED, EDGES_VISITED
+	}
+
+	/**
+	 * JFR event of a timed phase, committed when the phase ends
+	 */
+	@Name("scheduler.Phase")
+	@Label("Scheduler Phase")
+	@Description("A phase of a scheduler run or of reading a graph")
+	@Category("Scheduler")
+	@StackTrace(false)
+	static final class PhaseEvent extends Event {
+		@Label("Source")
+		String source;
+		@Label("Phase")
+		String phase;
+		@Label("Time")
+		@Timespan(Timespan.NANOSECONDS)
+		long time;
+	}
+
+	private static volatile boolean enabled = Boolean.getBoolean("scheduler.metrics");
+
+	/**
+	 * Name of the scheduler or reader reporting into this instance
+	 */
+	private final String source;
+	private final boolean on;
+	private final long[] nanos, calls, counters;
+
+	/**
+	 * @param source - name of the reporting scheduler or reader
+	 */
+	public Metrics(String source) {
+		this.source = source;
+		on = enabled;
+		nanos = new long[on ? Phase.values().length : 0];
+		calls = new long[on ? Phase.values().length : 0];
+		counters = new long[on ? Counter.values().length : 0];
+	}
+
+	/**
+	 * Switch metrics on or off for all runs started later.
+	 * @param on - true to collect metrics
+	 */
+	public static void setEnabled(boolean on) {
+		enabled = on;
+	}
+
+	/**
+	 * @return true iff runs started now collect metrics
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * @return true iff this run collects metrics
+	 */
+	public boolean enabled() {
+		return on;
+	}
+
+	/**
+	 * @return the start time of a phase, 0 if metrics are off
+	 */
+	public long begin() {
+		return on ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * @param phase - the phase that ends now
+	 * @param begin - its start time as returned by begin()
+	 */
+	public void end(Phase phase, long begin) {
+		if (!on)
+			return;
+		long time = System.nanoTime() - begin;
+		nanos[phase.ordinal()] += time;
+		calls[phase.ordinal()]++;
+		PhaseEvent e = new PhaseEvent();
+		if (e.shouldCommit()) {
+			e.source = source;
+			e.phase = phase.name();
+			e.time = time;
+			e.commit();
+		}
+	}
+
+	/**
+	 * @param counter - counter to be increased by one
+	 */
+	public void inc(Counter counter) {
+		if (on)
+			counters[counter.ordinal()]++;
+	}
+
+	/**
+	 * @param counter - counter to be increased
+	 * @param n - the increment
+	 */
+	public void add(Counter counter, long n) {
+		if (on)
+			counters[counter.ordinal()] += n;
+	}
+
+	/**
+	 * @return the name of the reporting scheduler or reader
+	 */
+	public String source() {
+		return source;
+	}
+
+	/**
+	 * @param phase - phase of interest
+	 * @return the total time spent in the phase in nanoseconds
+	 */
+	public long nanos(Phase phase) {
+		return on ? nanos[phase.ordinal()] : 0;
+	}
+
+	/**
+	 * @param phase - phase of interest
+	 * @return how often the phase was entered
+	 */
+	public long calls(Phase phase) {
+		return on ? calls[phase.ordinal()] : 0;
+	}
+
+	/**
+	 * @param counter - counter of interest
+	 * @return the value of the counter
+	 */
+	public long count(Counter counter) {
+		return on ? counters[counter.ordinal()] : 0;
+	}
+
+	/**
+	 * @return the phases and counters as a JSON object
+	 */
+	public String toJson() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("{\"source\":\"").append(source.replace("\\", "\\\\").replace("\"", "\\\"")).append("\",\"enabled\":")
+				.append(on).append(",\"phases\":{");
+		String sep = "";
+		for (Phase p : Phase.values()) {
+			if (calls(p) == 0)
+				continue;
+			sb.append(sep).append('"').append(p.name()).append("\":{\"ms\":")
+					.append(String.format(Locale.ROOT, "%.3f", nanos(p) / 1e6)).append(",\"calls\":").append(calls(p))
+					.append('}');
+			sep = ",";
+		}
+		sb.append("},\"counters\":{");
+		sep = "";
+		for (Counter c : Counter.values()) {
+			sb.append(sep).append('"').append(c.name()).append("\":").append(count(c));
+			sep = ",";
+		}
+		return sb.append("}}").toString();
+	}
+
+	public String toString() {
+		return toJson();
+	}
+}
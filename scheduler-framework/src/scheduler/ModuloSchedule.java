@@ -0,0 +1,194 @@
+package scheduler;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Formatter;
+
+/**
+ * Result of modulo scheduling a loop body: the start time and resource instance of every
+ * operation of one iteration, a new iteration is started every II time steps.
+ * <p>
+ * The operations of one iteration span stages() stages of II time steps each. Thus the
+ * software pipeline needs stages()-1 stages to fill (prologue) and to drain (epilogue).
+ */
+public class ModuloSchedule {
+	private final GraphIndex graph;
+	private final int ii, resMII, recMII;
+	/**
+	 * Start time of each node within its iteration
+	 */
+	private final int[] start;
+	/**
+	 * Resource instance of each node as index into resources
+	 */
+	private final int[] instance;
+	private final String[] resources;
+	private final int length;
+
+	ModuloSchedule(GraphIndex graph, int ii, int resMII, int recMII, int[] start, int[] instance, String[] resources) {
+		this.graph = graph;
+		this.ii = ii;
+		this.resMII = resMII;
+		this.recMII = recMII;
+		this.start = start;
+		this.instance = instance;
+		this.resources = resources;
+		int len = 0;
+		for (int v = 0; v < start.length; v++)
+			len = Math.max(len, start[v] + graph.delay(v));
+		length = len;
+	}
+
+	/**
+	 * @return the initiation interval
+	 */
+	public int ii() {
+		return ii;
+	}
+
+	/**
+	 * @return the resource bound of the initiation interval
+	 */
+	public int resMII() {
+		return resMII;
+	}
+
+	/**
+	 * @return the recurrence bound of the initiation interval
+	 */
+	public int recMII() {
+		return recMII;
+	}
+
+	/**
+	 * @return the lower bound of the initiation interval, max(ResMII, RecMII)
+	 */
+	public int mii() {
+		return Math.max(resMII, recMII);
+	}
+
+	/**
+	 * @return the latency of a single iteration
+	 */
+	public int length() {
+		return length;
+	}
+
+	/**
+	 * @return the number of stages of the software pipeline
+	 */
+	public int stages() {
+		return (length + ii - 1) / ii;
+	}
+
+	/**
+	 * @return the number of stages of the prologue and of the epilogue
+	 */
+	public int prologue() {
+		return stages() - 1;
+	}
+
+	/**
+	 * @return the number of stages of the epilogue, equal to the prologue
+	 */
+	public int epilogue() {
+		return stages() - 1;
+	}
+
+	/**
+	 * @param nd - a node of the graph
+	 * @return the start time of the node within its iteration
+	 */
+	public int start(Node nd) {
+		return start[graph.id(nd)];
+	}
+
+	/**
+	 * @param nd - a node of the graph
+	 * @return the stage of the node
+	 */
+	public int stage(Node nd) {
+		return start(nd) / ii;
+	}
+
+	/**
+	 * @param nd - a node of the graph
+	 * @return the resource instance executing the node
+	 */
+	public String resource(Node nd) {
+		return resources[instance[graph.id(nd)]];
+	}
+
+	/**
+	 * @return the schedule of a single iteration with the resource binding
+	 */
+	public Schedule iteration() {
+		Schedule res = new Schedule();
+		for (int v = 0; v < start.length; v++)
+			res.add(graph.node(v), new Interval(start[v], start[v] + graph.delay(v) - 1), resources[instance[v]]);
+		return res;
+	}
+
+	/**
+	 * @return the modulo reservation table: for every time step modulo II and resource the
+	 * node occupying it and its stage, null if the resource is free
+	 */
+	public String[][] mrt() {
+		String[][] res = new String[ii][resources.length];
+		for (int v = 0; v < start.length; v++)
+			for (int k = 0; k < graph.initiation(v); k++)
+				res[(start[v] + k) % ii][instance[v]] = graph.node(v) + "@" + start[v] / ii;
+		return res;
+	}
+
+	/**
+	 * @return II, its bounds, pipeline depth and the modulo reservation table
+	 */
+	public String report() {
+		Formatter f = new Formatter();
+		f.format("II %d (ResMII %d, RecMII %d), iteration latency %d, %d stages%n", ii, resMII, recMII, length,
+				stages());
+		f.format("prologue %d stages (%d steps), epilogue %d stages (%d steps)%n", prologue(), prologue() * ii,
+				epilogue(), epilogue() * ii);
+		f.format("%4s", "t");
+		for (String r : resources)
+			f.format(" %-16s", r);
+		f.format("%n");
+		String[][] mrt = mrt();
+		for (int t = 0; t < ii; t++) {
+			f.format("%4d", t);
+			for (String cell : mrt[t])
+				f.format(" %-16s", cell == null ? "." : cell);
+			f.format("%n");
+		}
+		String str = f.toString();
+		f.close();
+		return str;
+	}
+
+	/**
+	 * Write the modulo reservation table as CSV, one row per time step modulo II and one
+	 * column per resource.
+	 * @param fileName - name of the file
+	 */
+	public void export(String fileName) {
+		try {
+			BufferedWriter out = new BufferedWriter(new FileWriter(fileName));
+			out.write("t");
+			for (String r : resources)
+				out.write("," + r);
+			out.write("\n");
+			String[][] mrt = mrt();
+			for (int t = 0; t < ii; t++) {
+				out.write(Integer.toString(t));
+				for (String cell : mrt[t])
+					out.write("," + (cell == null ? "" : cell));
+				out.write("\n");
+			}
+			out.close();
+		} catch (IOException e) {
+			System.err.printf("Could not write %s: %s%n", fileName, e.getMessage());
+		}
+	}
+}
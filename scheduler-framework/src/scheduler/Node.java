@@ -287,4 +287,12 @@ public class Node {
 	public int getDelay(){
 		return rt.delay;
 	}
+	
+	/**
+	 * Get the number of time steps this nodes operation occupies its resource
+	 * @return the initiation interval of the resource type, see RT.initiation
+	 */
+	public int getInitiation() {
+		return rt.initiation;
+	}
 }
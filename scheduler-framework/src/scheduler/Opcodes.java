@@ -0,0 +1,167 @@
+package scheduler;
+
+import java.util.Arrays;
+
+/**
+ * Table driven classification of JVM opcodes into resource types.
+ * <p>
+ * The mnemonics are held in a trie over the characters A-Z, 0-9 and _, thus looking up a
+ * token takes one step per character and neither allocates nor depends on the order of any
+ * checks. The opcode of a node label is the identifier following the last ':' of the label,
+ * e.g. ISTORE in "770:ISTORE (false)" or IMUL in "d23 (Ss:7) - 46:IMUL". Unknown opcodes are
+ * reported as null, the caller decides how to treat them (see Dot_reader).
+ * <p>
+ * The table keeps the resource types RT.getRT() assigned to the opcodes of the graphs in
+ * graphs/, except for ERROR which contains "OR" but is no logic operation. Remainders, negations,
+ * conversions and field accesses are OTHER.
+ */
+public final class Opcodes {
+
+	private static final int ALPHABET = 37;
+	private static final RT[] TYPES = RT.values();
+	/**
+	 * Children of each trie node by character code, 0 if there is none (the root is never a child)
+	 */
+	private static int[] next = new int[ALPHABET * 512];
+	/**
+	 * Resource type ordinal + 1 of each trie node, 0 if no mnemonic ends there
+	 */
+	private static byte[] type = new byte[512];
+	private static int nodes = 1;
+
+	static {
+		add(RT.MUL, "IMUL", "LMUL", "FMUL", "DMUL");
+		add(RT.DIV, "IDIV", "LDIV", "FDIV", "DDIV");
+		add(RT.ADD, "IADD", "LADD", "FADD", "DADD", "IINC");
+		add(RT.SUB, "ISUB", "LSUB", "FSUB", "DSUB");
+		add(RT.SH, "ISHL", "ISHR", "IUSHR", "LSHL", "LSHR", "LUSHR");
+		add(RT.AND, "IAND", "LAND");
+		add(RT.OR, "IOR", "LOR", "IXOR", "LXOR");
+		add(RT.MEM, "ILOAD", "LLOAD", "FLOAD", "DLOAD", "ALOAD", "ISTORE", "LSTORE", "FSTORE", "DSTORE", "ASTORE");
+		for (String p : new String[] { "I", "L", "F", "D", "A" })
+			for (int k = 0; k < 4; k++)
+				add(RT.MEM, p + "LOAD_" + k, p + "STORE_" + k);
+		add(RT.MEM, "IALOAD", "LALOAD", "FALOAD", "DALOAD", "AALOAD", "BALOAD", "CALOAD", "SALOAD");
+		add(RT.MEM, "IASTORE", "LASTORE", "FASTORE", "DASTORE", "AASTORE", "BASTORE", "CASTORE", "SASTORE");
+		add(RT.MEM, "DMA_LOAD", "DMA_LOAD64", "DMA_STORE", "DMA_STORE64", "MEM");
+		add(RT.CMP, "IFEQ", "IFNE", "IFLT", "IFGE", "IFGT", "IFLE", "IFNULL", "IFNONNULL");
+		add(RT.CMP, "IF_ICMPEQ", "IF_ICMPNE", "IF_ICMPLT", "IF_ICMPGE", "IF_ICMPGT", "IF_ICMPLE", "IF_ACMPEQ", "IF_ACMPNE");
+		add(RT.CMP, "LCMP", "FCMPL", "FCMPG", "DCMPL", "DCMPG");
+		add(RT.OTHER, "IREM", "LREM", "FREM", "DREM", "INEG", "LNEG", "FNEG", "DNEG");
+		add(RT.OTHER, "I2L", "I2F", "I2D", "L2I", "L2F", "L2D", "F2I", "F2L", "F2D", "D2I", "D2L", "D2F", "I2B", "I2C", "I2S");
+		add(RT.OTHER, "GETFIELD", "PUTFIELD", "GETSTATIC", "PUTSTATIC", "GETFIELD_QUICK", "PUTFIELD_QUICK", "GETFIELD_ARRAY");
+		add(RT.OTHER, "ARRAYLENGTH", "NOP", "ERROR");
+	}
+
+	private Opcodes() {
+	}
+
+	private static void add(RT rt, String... mnemonics) {
+		for (String m : mnemonics) {
+			int node = 0;
+			for (int i = 0; i < m.length(); i++) {
+				int c = code(m.charAt(i));
+				if (next[node * ALPHABET + c] == 0) {
+					if (nodes == type.length) {
+						next = Arrays.copyOf(next, 2 * next.length);
+						type = Arrays.copyOf(type, 2 * type.length);
+					}
+					next[node * ALPHABET + c] = nodes++;
+				}
+				node = next[node * ALPHABET + c];
+			}
+			type[node] = (byte) (rt.ordinal() + 1);
+		}
+	}
+
+	/**
+	 * @return the trie code of a mnemonic character, -1 for any other character
+	 */
+	private static int code(char c) {
+		if (c >= 'A' && c <= 'Z')
+			return c - 'A';
+		if (c >= '0' && c <= '9')
+			return 26 + c - '0';
+		return c == '_' ? 36 : -1;
+	}
+
+	/**
+	 * @param s - text containing the mnemonic
+	 * @param from - start of the mnemonic
+	 * @param to - end of the mnemonic (exclusive)
+	 * @return the resource type of the mnemonic, null if it is unknown
+	 */
+	public static RT lookup(CharSequence s, int from, int to) {
+		if (from >= to)
+			return null;
+		int node = 0;
+		for (int i = from; i < to; i++) {
+			int c = code(s.charAt(i));
+			if (c < 0 || (node = next[node * ALPHABET + c]) == 0)
+				return null;
+		}
+		return type[node] == 0 ? null : TYPES[type[node] - 1];
+	}
+
+	/**
+	 * @param mnemonic - an opcode, e.g. IMUL
+	 * @return its resource type, null if it is unknown
+	 */
+	public static RT lookup(String mnemonic) {
+		return lookup(mnemonic, 0, mnemonic.length());
+	}
+
+	/**
+	 * @return the start of the opcode in s[from..to-1]: the first character after the last ':'
+	 * and any blanks following it
+	 */
+	private static int start(CharSequence s, int from, int to) {
+		int b = from;
+		for (int i = from; i < to; i++)
+			if (s.charAt(i) == ':')
+				b = i + 1;
+		while (b < to && s.charAt(b) == ' ')
+			b++;
+		return b;
+	}
+
+	/**
+	 * @return the end (exclusive) of the mnemonic starting at b
+	 */
+	private static int end(CharSequence s, int b, int to) {
+		int e = b;
+		while (e < to && code(s.charAt(e)) >= 0)
+			e++;
+		return e;
+	}
+
+	/**
+	 * @param label - text of a node label
+	 * @param from - start of the label
+	 * @param to - end of the label (exclusive)
+	 * @return the resource type of the opcode of the label, null if it is unknown
+	 */
+	public static RT classify(CharSequence label, int from, int to) {
+		int b = start(label, from, to);
+		return lookup(label, b, end(label, b, to));
+	}
+
+	/**
+	 * @param label - text of a node label
+	 * @return the resource type of the opcode of the label, null if it is unknown
+	 */
+	public static RT classify(CharSequence label) {
+		return classify(label, 0, label.length());
+	}
+
+	/**
+	 * @param label - text of a node label
+	 * @param from - start of the label
+	 * @param to - end of the label (exclusive)
+	 * @return the opcode of the label as classify() sees it, for reporting
+	 */
+	public static String opcode(CharSequence label, int from, int to) {
+		int b = start(label, from, to);
+		return label.subSequence(b, end(label, b, to)).toString();
+	}
+}
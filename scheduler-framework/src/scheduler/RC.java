@@ -3,7 +3,11 @@ package scheduler;
 import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
@@ -33,59 +37,61 @@ public class RC {
 	 * Reads the input and builds up the resource constraints
 	 * @param input - Buffered reader pointing to the configuration file
 	 */
-	private void lex(BufferedReader input) {
+	private void lex(BufferedReader input) throws IOException {
 		String line;
 		Pattern res_def = Pattern.compile("(\\w\\w*)\\s+(\\w\\w*).*");
 		Matcher m;
-		try {
-			line = input.readLine();
-			while (line != null) {
-				if(line.startsWith("//")){ // Ignore comments
-					line = input.readLine();
-					continue;
-				}
-				m = res_def.matcher(line);
-				if(m.matches()){
-					HashSet<RT> ops = new HashSet<RT>();
-					String[] opArray = line.split("\\s+");
-					for(int i = 1; i<opArray.length; i++){
-						RT currOp = RT.getRT(opArray[i]);
-						ops.add(currOp);							//Add operation to list of ops that this resource can execute
-						operations.get(currOp).add(opArray[0]);		//Add resource to list of res that can execute that op
-					}
-					res.put(opArray[0], ops);
-				}
-				
+		line = input.readLine();
+		while (line != null) {
+			if(line.startsWith("//")){ // Ignore comments
 				line = input.readLine();
+				continue;
 			}
-		} catch (Throwable e) {
-			System.err.printf("FATAL: Could not read from input%n");
-			e.printStackTrace(System.err);
-			System.exit(-1);
+			m = res_def.matcher(line);
+			if(m.matches()){
+				HashSet<RT> ops = new HashSet<RT>();
+				String[] opArray = line.split("\\s+");
+				for(int i = 1; i<opArray.length; i++){
+					RT currOp = RT.getRT(opArray[i]);
+					ops.add(currOp);							//Add operation to list of ops that this resource can execute
+					operations.get(currOp).add(opArray[0]);		//Add resource to list of res that can execute that op
+				}
+				res.put(opArray[0], ops);
+				if (Trace.on(Trace.Component.RC, Trace.Level.DEBUG))
+					Trace.log(Trace.Component.RC, Trace.Level.DEBUG, "%s supports %s", opArray[0], ops);
+			}
+			
+			line = input.readLine();
 		}
-		
+	}
+
+	/**
+	 * @return the available resources and the resources available for each operation
+	 */
+	public String diagnose() {
+		StringBuilder sb = new StringBuilder();
 		
 		// Print ops
-		System.out.println("Available resources:");
+		sb.append("Available resources:\n");
 		for(String resName: res.keySet()){
-			System.out.print(resName+":\t\t");
+			sb.append(resName+":\t\t");
 			for(RT op: res.get(resName)){
-				System.out.print(op.name+ ", ");
+				sb.append(op.name+ ", ");
 			}
-			System.out.println();
+			sb.append("\n");
 		}
-		System.out.println();
+		sb.append("\n");
 		
 		// Print resS für each OP
-		System.out.println("Available operations:");
+		sb.append("Available operations:\n");
 		for(RT op: operations.keySet()){
-			System.out.print(op.name+":\t\t");
+			sb.append(op.name+":\t\t");
 			for(String resName: operations.get(op)){
-				System.out.print(resName+", ");
+				sb.append(resName+", ");
 			}
-			System.out.println();
+			sb.append("\n");
 		}
-		System.out.println();
+		return sb.toString();
 	}
 
 	/**
@@ -93,14 +99,28 @@ public class RC {
 	 * @param fn - Filename of the configuration file
 	 */
 	public void parse(String fn) {
-		BufferedReader file_reader;
-		
 		try {
-			file_reader = new BufferedReader(new FileReader(fn));
-			lex(file_reader);
+			read(fn);
 		} catch (FileNotFoundException e) {
 			System.err.printf("FATAL: File not found: %s%n", fn);
 			System.exit(-1);
+		} catch (IOException e) {
+			System.err.printf("FATAL: Could not read from input%n");
+			e.printStackTrace(System.err);
+			System.exit(-1);
+		}
+		if (Trace.on(Trace.Component.RC, Trace.Level.INFO))
+			Trace.log(Trace.Component.RC, Trace.Level.INFO, "%s", diagnose());
+	}
+
+	/**
+	 * Parse the file supplied without printing anything.
+	 * @param fn - Filename of the configuration file
+	 * @throws IOException if the file cannot be read
+	 */
+	public void read(String fn) throws IOException {
+		try (BufferedReader file_reader = new BufferedReader(new FileReader(fn))) {
+			lex(file_reader);
 		}
 	}
 	
@@ -120,4 +140,38 @@ public class RC {
 		return operations.get(op);
 	}
 
+	/**
+	 * @return the names of all resources in their natural order
+	 */
+	public String[] names() {
+		return res.keySet().toArray(new String[res.size()]);
+	}
+
+	/**
+	 * For each resource type the resources able to execute it, the resources supporting the
+	 * fewest types first (ties by name). Binding operations in this order keeps the versatile
+	 * resources available.
+	 * @return for each resource type (by ordinal) the indices of its resources into names()
+	 */
+	public int[][] compatible() {
+		final String[] names = names();
+		int[][] res = new int[RT.values().length][];
+		for (RT rt : RT.values()) {
+			List<Integer> ids = new ArrayList<Integer>();
+			for (int i = 0; i < names.length; i++)
+				if (this.res.get(names[i]).contains(rt))
+					ids.add(i);
+			ids.sort(new Comparator<Integer>() {
+				public int compare(Integer a, Integer b) {
+					int c = RC.this.res.get(names[a]).size() - RC.this.res.get(names[b]).size();
+					return c != 0 ? c : names[a].compareTo(names[b]);
+				}
+			});
+			res[rt.ordinal()] = new int[ids.size()];
+			for (int i = 0; i < ids.size(); i++)
+				res[rt.ordinal()][i] = ids.get(i);
+		}
+		return res;
+	}
+
 }
@@ -4,8 +4,8 @@ public enum RT {
 		MEM (2, 9.0, "Mem"),
 		ADD (1, 1.0, "Add"),
 		SUB (1, 1.4, "Sub"),
-		MUL (4, 2.3, "Mul"),
-		DIV (18, 4.3, "Div"),
+		MUL (4, 1, 2.3, "Mul"),
+		DIV (18, 1, 4.3, "Div"),
 		SH (1, 2.0, "Shift"),
 		AND (1, 2.0, "And"),
 		OR (1, 2.0, "Or"),
@@ -14,10 +14,17 @@ public enum RT {
 		SLACK(1, 0.0, "Slack");
 	
 	/**
-	 * Delay (duration) of this resource type
+	 * Delay (duration) of this resource type, i.e. the latency until the result can be used
 	 */
 	public final Integer delay;
 	
+	/**
+	 * Initiation interval of this resource type: the number of time steps a unit is busy with
+	 * an operation before it can start the next one. Pipelined units (MUL, DIV) accept a new
+	 * operation every step, the others are busy for their full delay.
+	 */
+	public final int initiation;
+	
 	/**
 	 * Weight of this resource type
 	 */
@@ -29,13 +36,19 @@ public enum RT {
 	public final String name;
 	
 	private RT(Integer delay, Double weight, String name) {
+		this(delay, delay, weight, name);
+	}
+	
+	private RT(Integer delay, int initiation, Double weight, String name) {
 		this.delay = delay;
+		this.initiation = initiation;
 		this.weight = weight;
 		this.name = name;
 	}
 	
 	/**
-	 * Get the resource type for the given string. 
+	 * Get the resource type for the given string by the names it contains, the first match
+	 * wins. Used for node ids and resource files, node labels are classified by Opcodes.
 	 * @param id - the ID of the node to get the resource type from
 	 * @return the resource type. RT.OTHER if none was found
 	 */
@@ -3,7 +3,11 @@ package scheduler;
 import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.TreeMap;
 import java.util.Set;
 import java.util.Map;
@@ -12,36 +16,133 @@ import java.util.Formatter;
 
 /**
  * This class represents a single schedule.
+ * <p>
+ * The resource usage is kept in arrays indexed by time step: for every resource type the
+ * number of nodes in each time step and how many time steps have a given number of nodes.
+ * Thus adding or removing a node costs O(delay) and the peak usage of a resource type, the
+ * cost and the occupancy of a time step are available in O(1). A node is listed in every time
+ * step of its interval but occupies its resource only for the initiation interval of its type
+ * (see busyUntil()), i.e. a pipelined unit accepts a new node in the next time step.
+ * <p>
+ * A snapshot (or clone) takes O(1): both schedules share their data until one of them
+ * changes it. The node maps are hash tries of which only the changed paths are copied, the
+ * time steps are split into pages of which only the changed ones are copied.
  * @author ruschke
  */
 public class Schedule {
 	
+	private static final int PAGE_BITS = 6;
+	private static final int PAGE = 1 << PAGE_BITS;
+
+	/**
+	 * The nodes and resource usage of PAGE consecutive time steps
+	 */
+	private static final class Page {
+		/**
+		 * The schedule that may change this page in place
+		 */
+		final Object owner;
+		/**
+		 * Set of the nodes scheduled in each time step, null if there are none
+		 */
+		final List<Set<Node>> slots;
+		/**
+		 * Whether the set of a time step was created by the owner
+		 */
+		final boolean[] own;
+		/**
+		 * Number of nodes per resource type (by ordinal) in each time step, null if the type is unused
+		 */
+		final int[][] occupancy;
+
+		Page(Object owner) {
+			this.owner = owner;
+			slots = new ArrayList<Set<Node>>(Collections.nCopies(PAGE, (Set<Node>) null));
+			own = new boolean[PAGE];
+			occupancy = new int[RT.values().length][];
+		}
+
+		Page(Object owner, Page p) {
+			this.owner = owner;
+			slots = new ArrayList<Set<Node>>(p.slots);
+			own = new boolean[PAGE];
+			occupancy = new int[p.occupancy.length][];
+			for (int rt = 0; rt < occupancy.length; rt++)
+				if (p.occupancy[rt] != null)
+					occupancy[rt] = p.occupancy[rt].clone();
+		}
+	}
+
+	/**
+	 * Marks the pages this schedule may change in place, replaced by a snapshot
+	 */
+	private Object owner = new Object();
 	/**
 	 * Map of nodes and their intervals in the schedule
 	 */
-	private Map<Node, Interval> nodes;
+	private SharedMap<Node, Interval> nodes;
 	/**
-	 * Map of time steps and a set of the currently scheduled nodes
+	 * Map of nodes and the resource used for this node
 	 */
-	private Map<Integer, Set<Node>> slots;
+	private SharedMap<Node, String> resources;
 	/**
-	 * Map of resource types and a sorted mapping of resources and the time steps they are used in
+	 * Time step of index 0 of the pages
 	 */
-	private Map<RT, TreeMap<Resource, Integer>> sort_res;
+	private int base;
 	/**
-	 * Map of resource types and a sorted mapping of the time steps and resource that is used
+	 * The pages of the time steps from base on, null if nothing was scheduled there
 	 */
-	private Map<RT, Map<Integer, Resource>> tsort_res;
+	private Page[] pages;
+	private boolean ownPages;
 	/**
-	 * Map of nodes and the resource used for this node
+	 * Number of time steps per resource type with a given number (&gt; 0) of nodes
 	 */
-	private Map<Node, String> resources = new HashMap<Node, String>();
+	private int[][] histogram;
+	private boolean[] ownHistogram;
+	/**
+	 * Largest number of nodes per resource type in any time step
+	 */
+	private int[] peak;
+	/**
+	 * First and last occupied index, recomputed lazily after a removal at the bounds
+	 */
+	private int first, last;
+	private boolean bounded;
 		
 	public Schedule() {
-		nodes = new HashMap<Node, Interval>();
-		slots = new TreeMap<Integer, Set<Node>>();
-		sort_res = new HashMap<RT, TreeMap<Resource, Integer>>();
-		tsort_res = new HashMap<RT, Map<Integer, Resource>>();
+		nodes = new SharedMap<Node, Interval>();
+		resources = new SharedMap<Node, String>();
+		pages = new Page[0];
+		ownPages = true;
+		histogram = new int[RT.values().length][];
+		ownHistogram = new boolean[RT.values().length];
+		peak = new int[RT.values().length];
+		bounded = true;
+		first = Integer.MAX_VALUE;
+		last = Integer.MIN_VALUE;
+	}
+	
+	/**
+	 * Take a copy of this schedule in O(1). The data is shared until one of both schedules
+	 * changes it, then only the changed parts are copied.
+	 * @return a schedule with the same nodes, intervals and resources
+	 */
+	public Schedule snapshot() {
+		Schedule sched = new Schedule();
+		owner = new Object();
+		sched.nodes = nodes.snapshot();
+		sched.resources = resources.snapshot();
+		sched.base = base;
+		sched.pages = pages;
+		sched.histogram = histogram.clone();
+		sched.peak = peak.clone();
+		sched.first = first;
+		sched.last = last;
+		sched.bounded = bounded;
+		sched.ownPages = ownPages = false;
+		Arrays.fill(ownHistogram, false);
+		Arrays.fill(sched.ownHistogram, false);
+		return sched;
 	}
 	
 	/**
@@ -72,36 +173,34 @@ public class Schedule {
 		
 		nodes.put(nd, i);
 		
-		for (int ii = i.lbound; ii <= i.ubound; ii++) {
-			Set<Node> ss = slots.get(ii);
-			if (ss == null)
-				ss = new HashSet<Node>();
-			ss.add(nd);
-			slots.put(ii, ss);
-			
-			{
-				TreeMap<Resource, Integer> rmm = sort_res.get(nd.getRT());
-				if (rmm == null) {
-					rmm = new TreeMap<Resource, Integer>();
-					sort_res.put(nd.getRT(), rmm);
-				}
-				Map<Integer, Resource> rtm = tsort_res.get(nd.getRT());
-				if (rtm == null) {
-					rtm = new HashMap<Integer, Resource>();
-					tsort_res.put(nd.getRT(), rtm);
-				}
-				Resource rss = rtm.get(ii);
-				if (rss == null) {
-					rss = new Resource(nd.getRT(), ii);
-					rss.inc();
-					rmm.put(rss, ii);
-					rtm.put(ii, rss);
-				} else {
-					rmm.remove(rss);
-					rss.inc();
-					rmm.put(rss, ii);
-				}
+		int lo = i.lbound, hi = i.ubound, busy = busyUntil(nd, lo, hi);
+		reserve(lo, hi);
+		int rt = nd.getRT().ordinal();
+		for (int k = lo - base; k <= hi - base; k++) {
+			Page p = page(k);
+			int j = k & (PAGE - 1);
+			Set<Node> s = p.slots.get(j);
+			if (s == null || !p.own[j]) {
+				p.slots.set(j, s == null ? new HashSet<Node>() : new HashSet<Node>(s));
+				p.own[j] = true;
 			}
+			p.slots.get(j).add(nd);
+			if (k >= busy - base)
+				continue;
+			
+			if (p.occupancy[rt] == null)
+				p.occupancy[rt] = new int[PAGE];
+			int c = ++p.occupancy[rt][j];
+			int[] hist = histogram(rt, c);
+			if (c > 1)
+				hist[c - 1]--;
+			hist[c]++;
+			if (c > peak[rt])
+				peak[rt] = c;
+		}
+		if (bounded) {
+			first = Math.min(first, lo - base);
+			last = Math.max(last, hi - base);
 		}
 	}
 	
@@ -112,8 +211,16 @@ public class Schedule {
 	 * @param resource - resource to be used for the node
 	 */
 	public void add(Node nd, Interval i, String resource) {
-		resources.put(nd, resource);
 		add(nd, i);
+		resources.put(nd, resource);
+	}
+	
+	/**
+	 * @param nd - a scheduled node
+	 * @return the resource the node is bound to, null if it is not bound
+	 */
+	public String resource(Node nd) {
+		return resources.get(nd);
 	}
 	
 	/**
@@ -129,21 +236,122 @@ public class Schedule {
 		if (i == null)
 			return;
 
-		for (int ii = i.lbound; ii <= i.ubound; ii++) {
-			slots.get(ii).remove(nd);
+		int rt = nd.getRT().ordinal();
+		int lo = i.lbound, hi = i.ubound, busy = busyUntil(nd, lo, hi);
+		for (int k = lo - base; k <= hi - base; k++) {
+			Page p = page(k);
+			int j = k & (PAGE - 1);
+			if (p.slots.get(j).size() == 1) {
+				p.slots.set(j, null);
+				p.own[j] = false;
+				if (k == first || k == last)
+					bounded = false;
+			} else {
+				if (!p.own[j]) {
+					p.slots.set(j, new HashSet<Node>(p.slots.get(j)));
+					p.own[j] = true;
+				}
+				p.slots.get(j).remove(nd);
+			}
+			if (k >= busy - base)
+				continue;
 			
-			{
-				Map<Integer, Resource> rtm = tsort_res.get(nd.getRT());
-				if (rtm == null)
-					continue;
-				Resource r = rtm.get(ii);
-				if (r == null)
-					continue;
-				sort_res.get(nd.getRT()).remove(r);
-				r.dec();
-				sort_res.get(nd.getRT()).put(r, ii);
+			int c = p.occupancy[rt][j]--;
+			int[] hist = histogram(rt, c);
+			hist[c]--;
+			if (c > 1)
+				hist[c - 1]++;
+			if (c == peak[rt] && hist[c] == 0)
+				peak[rt]--;
+		}
+	}
+	
+	/**
+	 * @param nd - a scheduled node
+	 * @return the first time step after the node in which its resource is free again, i.e. its
+	 * start plus the initiation interval of a pipelined type, the end of its interval + 1 otherwise
+	 */
+	public int busyUntil(Node nd) {
+		Interval i = nodes.get(nd);
+		return busyUntil(nd, i.lbound, i.ubound);
+	}
+	
+	private static int busyUntil(Node nd, int lo, int hi) {
+		int ii = nd.getInitiation();
+		return ii < nd.getDelay() ? lo + Math.max(1, Math.min(ii, hi - lo + 1)) : hi + 1;
+	}
+	
+	/**
+	 * @return the page of the given index for changing it
+	 */
+	private Page page(int k) {
+		if (!ownPages) {
+			pages = pages.clone();
+			ownPages = true;
+		}
+		Page p = pages[k >> PAGE_BITS];
+		if (p == null)
+			p = pages[k >> PAGE_BITS] = new Page(owner);
+		else if (p.owner != owner)
+			p = pages[k >> PAGE_BITS] = new Page(owner, p);
+		return p;
+	}
+	
+	/**
+	 * @return the histogram of the given resource type for changing it, large enough for the given count
+	 */
+	private int[] histogram(int rt, int count) {
+		int[] hist = histogram[rt];
+		if (hist == null || !ownHistogram[rt] || count >= hist.length) {
+			hist = hist == null ? new int[Math.max(4, 2 * count)] : Arrays.copyOf(hist, Math.max(hist.length, 2 * count));
+			histogram[rt] = hist;
+			ownHistogram[rt] = true;
+		}
+		return hist;
+	}
+	
+	/**
+	 * Make the pages cover the time steps from lo to hi
+	 */
+	private void reserve(int lo, int hi) {
+		if (pages.length == 0)
+			base = lo;
+		int size = pages.length;
+		if (lo >= base && hi < base + size * PAGE)
+			return;
+		// grow geometrically into the direction of the request
+		int below = lo < base ? (base - lo + PAGE - 1) >> PAGE_BITS : 0;
+		int above = Math.max(0, ((hi - base) >> PAGE_BITS) + 1 - size);
+		if (below > 0)
+			below = Math.max(below, size);
+		else
+			above = Math.max(above, Math.max(1, size));
+		Page[] np = new Page[below + size + above];
+		System.arraycopy(pages, 0, np, below, size);
+		pages = np;
+		ownPages = true;
+		if (first <= last) {
+			first += below * PAGE;
+			last += below * PAGE;
+		}
+		base -= below * PAGE;
+	}
+	
+	/**
+	 * Recompute the first and last occupied index
+	 */
+	private void bound() {
+		if (bounded)
+			return;
+		first = Integer.MAX_VALUE;
+		last = Integer.MIN_VALUE;
+		for (int k = 0; k < pages.length * PAGE; k++) {
+			if (pages[k >> PAGE_BITS] != null && pages[k >> PAGE_BITS].slots.get(k & (PAGE - 1)) != null) {
+				first = Math.min(first, k);
+				last = k;
 			}
 		}
+		bounded = true;
 	}
 	
 	/**
@@ -152,8 +360,8 @@ public class Schedule {
 	 */
 	public Double cost() {
 		Double c = 0.0;
-		for (RT rt : sort_res.keySet())
-			c += sort_res.get(rt).firstKey().weight();
+		for (RT rt : RT.values())
+			c += rt.weight * peak[rt.ordinal()];
 			
 		return c;
 	}
@@ -164,55 +372,49 @@ public class Schedule {
 	public Map<RT, Double> costPerResource() {
 		Map<RT, Double> cm = new TreeMap<RT, Double>();
 		Double w;
-		for (RT rt : sort_res.keySet()) {
-			w = sort_res.get(rt).firstKey().weight();
+		for (RT rt : RT.values()) {
+			w = rt.weight * peak[rt.ordinal()];
 			if (w.compareTo(0.0) > 0)
 				cm.put(rt, w);
 		}
 		return cm;
 	}
 
+	/**
+	 * @param rt - resource type of interest
+	 * @return the largest number of nodes of the given type in any time step
+	 */
+	public int peak(RT rt) {
+		return peak[rt.ordinal()];
+	}
+
+	/**
+	 * @param rt - resource type of interest
+	 * @param step - time step of interest
+	 * @return the number of nodes of the given type in the given time step
+	 */
+	public int occupancy(RT rt, int step) {
+		int k = step - base;
+		if (k < 0 || k >= pages.length * PAGE || pages[k >> PAGE_BITS] == null)
+			return 0;
+		int[] occ = pages[k >> PAGE_BITS].occupancy[rt.ordinal()];
+		return occ == null ? 0 : occ[k & (PAGE - 1)];
+	}
+
 	/**
 	 * Shift the schedule by the given amount. I.e. add the given amount to all intervals.
 	 * @param shift the amount to shift the schedule by
 	 * @return this schedule after shifting
 	 */
 	public Schedule shift(Integer shift) {
-		TreeMap<Integer, Set<Node>> ns = new TreeMap<Integer, Set<Node>>();
-		HashMap<Node, Interval> nds = new HashMap<Node, Interval>();
-		for (Node nd : nodes.keySet())
-			nds.put(nd, nodes.get(nd).shift(shift));
-
-		for (RT rt : tsort_res.keySet()) {
-			Map<Integer, Resource> rm = tsort_res.get(rt);
-			Map<Integer, Resource> nrm = new HashMap<Integer, Resource>();
-			for (Integer i : rm.keySet())
-				nrm.put(i+shift, rm.get(i));
-			tsort_res.put(rt, nrm);
-	
-			TreeMap<Resource, Integer> rtm = sort_res.get(rt);
-			TreeMap<Resource, Integer> nrtm = new TreeMap<Resource, Integer>();
-			
-			Set<Resource> rset;
-			
-			if (shift > 0)
-				rset = rtm.keySet();
-			else
-				rset = rtm.descendingKeySet();
-			
-			for (Resource r : rset) {
-				r.step(rtm.get(r)+shift);
-				nrtm.put(r, rtm.get(r)+shift);		
-			}
-			sort_res.put(rt, nrtm);
-		}
-		for (Integer i : slots.keySet()) {
-			ns.put(i + shift, slots.get(i));
-
-		}
+		if (shift == 0)
+			return this;
+		SharedMap<Node, Interval> nds = new SharedMap<Node, Interval>();
+		for (Map.Entry<Node, Interval> e : nodes.entrySet())
+			nds.put(e.getKey(), e.getValue().shift(shift));
 
 		nodes = nds;
-		slots = ns;
+		base += shift;
 		return this;
 	}
 	
@@ -229,10 +431,14 @@ public class Schedule {
 	 * Get the nodes currently scheduled in the given time step. Note that if a node is started at an earlier time step but overlaps the 
 	 * given, such a node is also part of the returned set.
 	 * @param slot - time step of interest
-	 * @return set of nodes scheduled at the given time
+	 * @return set of nodes scheduled at the given time, null if there are none
 	 */
-	public Set<Node> nodes(int slot) {		
-		return slots.get(slot);
+	public Set<Node> nodes(int slot) {
+		int k = slot - base;
+		if (k < 0 || k >= pages.length * PAGE || pages[k >> PAGE_BITS] == null)
+			return null;
+		Set<Node> ss = pages[k >> PAGE_BITS].slots.get(k & (PAGE - 1));
+		return ss == null ? null : Collections.unmodifiableSet(ss);
 	}
 	
 	/**
@@ -242,14 +448,11 @@ public class Schedule {
 		return nodes.keySet();
 	}
 	
+	/**
+	 * @return a snapshot of this schedule, see snapshot()
+	 */
 	public Schedule clone() {
-		Schedule sched = new Schedule();
-		
-		for (Node nd : nodes.keySet()) {
-			sched.add(nd, new Interval(nodes.get(nd).lbound, nodes.get(nd).ubound));
-		}
-
-		return sched;
+		return snapshot();
 	}
 	
 	/**
@@ -257,16 +460,7 @@ public class Schedule {
 	 * @return this schedule's length
 	 */
 	public Integer length() {
-		Integer min, max;
-		min = Integer.MAX_VALUE;
-		max = Integer.MIN_VALUE;
-		for (Integer ii : slots.keySet()) {
-			if (ii < min)
-				min = ii;
-			if (ii > max)
-				max = ii;
-		}
-		return 1 + max - min;
+		return 1 + max() - min();
 	}
 	
 	/**
@@ -274,13 +468,8 @@ public class Schedule {
 	 * @return the earliest lower bound of the currently scheduled nodes
 	 */
 	public int min() {
-		int min;
-		min = Integer.MAX_VALUE;
-		for (Integer ii : slots.keySet()) {
-			if (ii < min)
-				min = ii;
-		}
-		return min;
+		bound();
+		return first <= last ? base + first : Integer.MAX_VALUE;
 	}
 	
 	/**
@@ -288,13 +477,8 @@ public class Schedule {
 	 * @return the latest upper bound of the currently scheduled nodes
 	 */
 	public int max() {
-		int max;
-		max = Integer.MIN_VALUE;
-		for (Integer ii : slots.keySet()) {
-			if (ii > max)
-				max = ii;
-		}
-		return max;
+		bound();
+		return first <= last ? base + last : Integer.MIN_VALUE;
 	}
 
 	/**
@@ -302,14 +486,14 @@ public class Schedule {
 	 * @return null iff the schedule has no illegal overlaps, a conflicting node otherwise
 	 */
 	public Node validate() {
-		for (Node nd : nodes.keySet())
-			for (Node sn : nd.successors()) {
-				if (slot(sn) == null)
-					continue;
-				if (slot(nd).ubound.compareTo(slot(sn).lbound) >= 0) {
-					return nd;
-				}
+		for (Map.Entry<Node, Interval> e : nodes.entrySet()) {
+			int end = e.getValue().ubound;
+			for (Node sn : e.getKey().successors()) {
+				Interval i = slot(sn);
+				if (i != null && end >= i.lbound)
+					return e.getKey();
 			}
+		}
 		return null;
 	}
 
@@ -330,17 +514,23 @@ public class Schedule {
 		Formatter f = new Formatter();
 		f.format("Found schedule of length %d%n%n", length());
 		Set<Node> os = new HashSet<Node>();
-		for (Integer ii : slots.keySet())
-			for (Node nd : slots.get(ii)) {
+		for (int ii = min(); ii <= max(); ii++) {
+			if (nodes(ii) == null)
+				continue;
+			for (Node nd : nodes(ii)) {
 				if (os.contains(nd))
 					continue;
 				os.add(nd);
 				f.format("%s : %s%n", nd, nodes.get(nd));
 			}
+		}
 		f.format("%nRegistered resources%n");
-		for (RT rt : sort_res.keySet()) {
-			for (Resource r : sort_res.get(rt).keySet())
-				f.format(" %s %s %s %n", rt, r.step(), r.weight());
+		// by decreasing usage, then by decreasing time step
+		for (RT rt : RT.values()) {
+			for (int c = peak(rt); c > 0; c--)
+				for (int ii = max(); ii >= min(); ii--)
+					if (occupancy(rt, ii) == c)
+						f.format(" %s %s %s %n", rt, ii, rt.weight * c);
 		}
 		
 		String str = f.toString();
@@ -5,11 +5,36 @@ package scheduler;
  * for a reason. You must work on a local clone. (See Graph)
  */
 public abstract class Scheduler {
-	
+
+	/**
+	 * Metrics of the last run of schedule()
+	 */
+	protected Metrics metrics = new Metrics(getClass().getSimpleName());
+
 	/**
-	 * Use the graph given to create a schedule. 
+	 * Use the graph given to create a schedule.
 	 * @param sg - the dependency graph
 	 * @return a schedule for the given graph
 	 */
 	public abstract Schedule schedule(final Graph sg);
+
+	/**
+	 * @return the phase timers and counters of the last run, see Metrics
+	 */
+	public Metrics metrics() {
+		return metrics;
+	}
+
+	/**
+	 * Start the metrics of a new run.
+	 * @return the metrics to report into
+	 */
+	protected Metrics newMetrics() {
+		metrics = new Metrics(toString());
+		return metrics;
+	}
+
+	public String toString() {
+		return getClass().getSimpleName();
+	}
 }
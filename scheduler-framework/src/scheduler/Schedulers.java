@@ -0,0 +1,75 @@
+package scheduler;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Registry of the schedulers by name, e.g. to select them on the command line.
+ * <p>
+ * A latency bound lmax &lt;= 0 means no bound for schedulers that accept one.
+ */
+public final class Schedulers {
+
+	/**
+	 * Creates a scheduler for the given resources and latency bound
+	 */
+	public interface Factory {
+		Scheduler create(RC rc, int lmax);
+	}
+
+	private static final Map<String, Factory> registry = new LinkedHashMap<String, Factory>();
+
+	static {
+		register("ASAP", (rc, lmax) -> new ASAP());
+		register("ALAP", (rc, lmax) -> lmax > 0 ? new ALAP(lmax) : new ALAP());
+		register("FDS", (rc, lmax) -> new FDS(rc, lmax));
+		register("FDS_Lookahead", (rc, lmax) -> new FDS(rc, lmax, 1, true));
+		register("FDLS", (rc, lmax) -> new FDLS(rc, lmax));
+		register("LIST", (rc, lmax) -> new LIST(rc, LIST.Priorities.CRITICAL_PATH, lmax));
+		register("LIST_Mobility", (rc, lmax) -> new LIST(rc, LIST.Priorities.MOBILITY, lmax));
+		register("LIST_Successors", (rc, lmax) -> new LIST(rc, LIST.Priorities.SUCCESSORS, lmax));
+		register("LIST_Force", (rc, lmax) -> new LIST(rc, LIST.Priorities.FORCE, lmax));
+		register("IMS", (rc, lmax) -> new IMS(rc));
+		// one search thread, batch runs already schedule several graphs in parallel
+		register("BranchAndBound", (rc, lmax) -> new BranchAndBound(rc, 10000, 1));
+	}
+
+	private Schedulers() {
+	}
+
+	/**
+	 * Add or replace a scheduler.
+	 * @param name - name of the scheduler
+	 * @param factory - creates instances of the scheduler
+	 */
+	public static synchronized void register(String name, Factory factory) {
+		registry.put(name, factory);
+	}
+
+	/**
+	 * @return the names of all schedulers in order of registration
+	 */
+	public static synchronized Set<String> names() {
+		return Collections.unmodifiableSet(new LinkedHashSet<String>(registry.keySet()));
+	}
+
+	/**
+	 * @param name - name of the scheduler
+	 * @param rc - resource constraints, may be null
+	 * @param lmax - latency bound
+	 * @return a new instance of the scheduler
+	 * @throws IllegalArgumentException if no scheduler of this name exists
+	 */
+	public static Scheduler create(String name, RC rc, int lmax) {
+		Factory factory;
+		synchronized (Schedulers.class) {
+			factory = registry.get(name);
+		}
+		if (factory == null)
+			throw new IllegalArgumentException("Unknown scheduler " + name + ", known are " + names());
+		return factory.create(rc, lmax);
+	}
+}
@@ -0,0 +1,275 @@
+package scheduler;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Hash map whose copies share their structure. The entries are kept in a hash trie with 32
+ * children per branch and small leaves. A snapshot shares the whole trie, afterwards each map
+ * copies the path from the root to the leaf it modifies, but only once per snapshot: every
+ * trie node records the map that created it and that map changes it in place.
+ * <p>
+ * Null keys are not supported. The iterators do not support removal.
+ */
+final class SharedMap<K, V> extends AbstractMap<K, V> {
+	private static final int BITS = 5;
+	private static final int WIDTH = 1 << BITS;
+	/**
+	 * Entries of a leaf before it is split into a branch
+	 */
+	private static final int LEAF = 8;
+
+	private static final class Branch {
+		final Object owner;
+		final Object[] child;
+
+		Branch(Object owner, Object[] child) {
+			this.owner = owner;
+			this.child = child;
+		}
+	}
+
+	private static final class Leaf {
+		final Object owner;
+		/**
+		 * Keys at even and values at odd indices
+		 */
+		Object[] kv;
+		int size;
+
+		Leaf(Object owner, Object[] kv, int size) {
+			this.owner = owner;
+			this.kv = kv;
+			this.size = size;
+		}
+	}
+
+	/**
+	 * Marks the trie nodes this map may change in place
+	 */
+	private Object owner = new Object();
+	private Object root;
+	private int size;
+	/**
+	 * Set by put and remove if the key was present before
+	 */
+	private Object previous;
+	private boolean found;
+
+	public SharedMap() {
+	}
+
+	private SharedMap(Object root, int size) {
+		this.root = root;
+		this.size = size;
+	}
+
+	/**
+	 * @return a map with the same entries in O(1), changes to either map are not visible in
+	 * the other one
+	 */
+	public SharedMap<K, V> snapshot() {
+		owner = new Object();
+		return new SharedMap<K, V>(root, size);
+	}
+
+	private static int hash(Object key) {
+		int h = key.hashCode();
+		return h ^ (h >>> 16);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return find(key) != null;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public V get(Object key) {
+		Leaf l = find(key);
+		if (l == null)
+			return null;
+		return (V) l.kv[index(l, key) + 1];
+	}
+
+	private Leaf find(Object key) {
+		int h = hash(key);
+		Object node = root;
+		for (int shift = 0; node instanceof Branch; shift += BITS)
+			node = ((Branch) node).child[(h >>> shift) & (WIDTH - 1)];
+		if (node == null)
+			return null;
+		Leaf l = (Leaf) node;
+		return index(l, key) >= 0 ? l : null;
+	}
+
+	private static int index(Leaf l, Object key) {
+		for (int i = 0; i < 2 * l.size; i += 2)
+			if (l.kv[i].equals(key))
+				return i;
+		return -1;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public V put(K key, V value) {
+		if (key == null)
+			throw new NullPointerException();
+		found = false;
+		root = put(root, hash(key), 0, key, value);
+		V res = found ? (V) previous : null;
+		previous = null;
+		if (!found)
+			size++;
+		return res;
+	}
+
+	private Object put(Object node, int h, int shift, Object key, Object value) {
+		if (node == null)
+			return new Leaf(owner, new Object[] { key, value, null, null }, 1);
+		if (node instanceof Branch) {
+			Branch b = (Branch) node;
+			if (b.owner != owner)
+				b = new Branch(owner, b.child.clone());
+			int i = (h >>> shift) & (WIDTH - 1);
+			b.child[i] = put(b.child[i], h, shift + BITS, key, value);
+			return b;
+		}
+		Leaf l = (Leaf) node;
+		int i = index(l, key);
+		if (i < 0 && l.size >= LEAF && shift < 32) {
+			// split the leaf, the entries are spread over the children of a new branch
+			Branch b = new Branch(owner, new Object[WIDTH]);
+			for (int k = 0; k < 2 * l.size; k += 2) {
+				int j = (hash(l.kv[k]) >>> shift) & (WIDTH - 1);
+				b.child[j] = put(b.child[j], hash(l.kv[k]), shift + BITS, l.kv[k], l.kv[k + 1]);
+			}
+			return put(b, h, shift, key, value);
+		}
+		if (l.owner != owner)
+			l = new Leaf(owner, l.kv.clone(), l.size);
+		if (i >= 0) {
+			found = true;
+			previous = l.kv[i + 1];
+			l.kv[i + 1] = value;
+			return l;
+		}
+		if (2 * l.size == l.kv.length)
+			l.kv = Arrays.copyOf(l.kv, 2 * l.kv.length);
+		l.kv[2 * l.size] = key;
+		l.kv[2 * l.size + 1] = value;
+		l.size++;
+		return l;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public V remove(Object key) {
+		if (key == null || find(key) == null)
+			return null;
+		root = remove(root, hash(key), 0, key);
+		V res = (V) previous;
+		previous = null;
+		size--;
+		return res;
+	}
+
+	private Object remove(Object node, int h, int shift, Object key) {
+		if (node instanceof Branch) {
+			Branch b = (Branch) node;
+			if (b.owner != owner)
+				b = new Branch(owner, b.child.clone());
+			int i = (h >>> shift) & (WIDTH - 1);
+			b.child[i] = remove(b.child[i], h, shift + BITS, key);
+			return b;
+		}
+		Leaf l = (Leaf) node;
+		if (l.owner != owner)
+			l = new Leaf(owner, l.kv.clone(), l.size);
+		int i = index(l, key);
+		previous = l.kv[i + 1];
+		l.size--;
+		l.kv[i] = l.kv[2 * l.size];
+		l.kv[i + 1] = l.kv[2 * l.size + 1];
+		l.kv[2 * l.size] = null;
+		l.kv[2 * l.size + 1] = null;
+		return l.size == 0 ? null : l;
+	}
+
+	@Override
+	public void clear() {
+		root = null;
+		size = 0;
+	}
+
+	@Override
+	public Set<Map.Entry<K, V>> entrySet() {
+		return new AbstractSet<Map.Entry<K, V>>() {
+			@Override
+			public int size() {
+				return size;
+			}
+
+			@Override
+			public Iterator<Map.Entry<K, V>> iterator() {
+				return new Entries();
+			}
+		};
+	}
+
+	/**
+	 * Depth first walk over the leaves of the trie
+	 */
+	private final class Entries implements Iterator<Map.Entry<K, V>> {
+		private final ArrayDeque<Object> stack = new ArrayDeque<Object>();
+		private Leaf leaf;
+		private int pos;
+
+		Entries() {
+			if (root != null)
+				stack.push(root);
+			advance();
+		}
+
+		private void advance() {
+			while ((leaf == null || pos >= leaf.size) && !stack.isEmpty()) {
+				Object node = stack.pop();
+				if (node instanceof Branch) {
+					for (Object c : ((Branch) node).child)
+						if (c != null)
+							stack.push(c);
+				} else {
+					leaf = (Leaf) node;
+					pos = 0;
+				}
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return leaf != null && pos < leaf.size;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public Map.Entry<K, V> next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			Map.Entry<K, V> e = new AbstractMap.SimpleImmutableEntry<K, V>((K) leaf.kv[2 * pos], (V) leaf.kv[2 * pos + 1]);
+			pos++;
+			advance();
+			return e;
+		}
+	}
+}
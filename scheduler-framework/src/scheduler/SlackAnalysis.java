@@ -0,0 +1,282 @@
+package scheduler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Formatter;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Critical path and slack analysis of a graph for a given latency bound.
+ * <p>
+ * One forward and one backward longest path pass over the intra-iteration edges in
+ * topological order give the earliest and latest start time of every node. These are the
+ * lower bounds of the ASAP and ALAP(lmax) schedules without building either of them.
+ */
+public class SlackAnalysis {
+	/**
+	 * Index of the analysed graph
+	 */
+	private final GraphIndex graph;
+	/**
+	 * Earliest and latest start time of each node
+	 */
+	private final int[] earliest, latest;
+	/**
+	 * Longest path from each node to a leaf, including the node's own delay
+	 */
+	private final int[] tail;
+	/**
+	 * Length of the critical path, i.e. the minimum schedule length
+	 */
+	private final int length;
+	/**
+	 * Latency bound the latest start times are computed for
+	 */
+	private final int lmax;
+
+	/**
+	 * A path through the graph and its length (sum of delays).
+	 */
+	public static class Path {
+		public final int length;
+		public final List<Node> nodes;
+
+		Path(int length, List<Node> nodes) {
+			this.length = length;
+			this.nodes = Collections.unmodifiableList(nodes);
+		}
+
+		public String toString() {
+			return length + " " + nodes;
+		}
+	}
+
+	/**
+	 * @param graph - index of the graph to analyse, must be acyclic
+	 * @param lmax - maximum schedule length. If lmax &lt;= 0 the length of the critical path is
+	 * used.
+	 */
+	public SlackAnalysis(final GraphIndex graph, int lmax) {
+		if (!graph.isAcyclic())
+			throw new IllegalArgumentException("Graph has cyclic dependencies within one iteration");
+		int n = graph.size();
+		this.graph = graph;
+		earliest = new int[n];
+		latest = new int[n];
+		tail = new int[n];
+
+		// forward pass
+		int len = 0;
+		for (int v = 0; v < n; v++) {
+			int start = 0;
+			for (int k = graph.predBegin(v); k < graph.predEnd(v); k++) {
+				int p = graph.pred(k);
+				start = Math.max(start, earliest[p] + graph.delay(p));
+			}
+			earliest[v] = start;
+			len = Math.max(len, start + graph.delay(v));
+		}
+		length = len;
+		this.lmax = lmax > 0 ? lmax : len;
+
+		// backward pass
+		for (int v = n - 1; v >= 0; v--) {
+			int t = 0;
+			for (int k = graph.succBegin(v); k < graph.succEnd(v); k++)
+				t = Math.max(t, tail[graph.succ(k)]);
+			tail[v] = t + graph.delay(v);
+			latest[v] = this.lmax - tail[v];
+		}
+	}
+
+	private SlackAnalysis(final SlackAnalysis analysis, int lmax) {
+		graph = analysis.graph;
+		earliest = analysis.earliest;
+		tail = analysis.tail;
+		length = analysis.length;
+		this.lmax = lmax > 0 ? lmax : length;
+		latest = new int[tail.length];
+		for (int v = 0; v < tail.length; v++)
+			latest[v] = this.lmax - tail[v];
+	}
+
+	/**
+	 * The analysis for another latency bound. Only the latest start times depend on the bound,
+	 * thus the earliest start times and paths are shared and no pass over the edges is needed.
+	 * @param lmax - maximum schedule length, see SlackAnalysis(GraphIndex, int)
+	 * @return the analysis of the same graph for the given latency bound
+	 */
+	public SlackAnalysis withLatency(int lmax) {
+		return new SlackAnalysis(this, lmax);
+	}
+
+	/**
+	 * @return the index of the analysed graph
+	 */
+	public GraphIndex graph() {
+		return graph;
+	}
+
+	/**
+	 * @return the length of the critical path, i.e. the minimum schedule length
+	 */
+	public int criticalPathLength() {
+		return length;
+	}
+
+	/**
+	 * @return the latency bound of the analysis
+	 */
+	public int lmax() {
+		return lmax;
+	}
+
+	/**
+	 * @return true iff the latency bound can be met, i.e. no node has negative slack
+	 */
+	public boolean feasible() {
+		return length <= lmax;
+	}
+
+	/**
+	 * @param v - index of the node
+	 * @return the earliest start time of the node
+	 */
+	public int earliest(int v) {
+		return earliest[v];
+	}
+
+	/**
+	 * @param v - index of the node
+	 * @return the latest start time of the node that still meets the latency bound
+	 */
+	public int latest(int v) {
+		return latest[v];
+	}
+
+	/**
+	 * @param v - index of the node
+	 * @return the slack (mobility) of the node, negative if the latency bound is too small
+	 */
+	public int slack(int v) {
+		return latest[v] - earliest[v];
+	}
+
+	/**
+	 * @param v - index of the node
+	 * @return the longest path from the node to a leaf, including the node's delay
+	 */
+	public int pathToLeaf(int v) {
+		return tail[v];
+	}
+
+	/**
+	 * @param v - index of the node
+	 * @return true iff the node lies on a critical path
+	 */
+	public boolean critical(int v) {
+		return earliest[v] + tail[v] == length;
+	}
+
+	/**
+	 * @param nd - node of interest
+	 * @return the earliest start time of the node
+	 */
+	public int earliest(Node nd) {
+		return earliest[graph.id(nd)];
+	}
+
+	/**
+	 * @param nd - node of interest
+	 * @return the latest start time of the node that still meets the latency bound
+	 */
+	public int latest(Node nd) {
+		return latest[graph.id(nd)];
+	}
+
+	/**
+	 * @param nd - node of interest
+	 * @return the slack (mobility) of the node, negative if the latency bound is too small
+	 */
+	public int slack(Node nd) {
+		return slack(graph.id(nd));
+	}
+
+	/**
+	 * @param nd - node of interest
+	 * @return true iff the node lies on a critical path
+	 */
+	public boolean critical(Node nd) {
+		return critical(graph.id(nd));
+	}
+
+	/**
+	 * Find the k longest paths from a root to a leaf. Paths are expanded best first, ordered by
+	 * the length of their prefix plus the longest path from its last node to a leaf. As this
+	 * estimate is exact, complete paths are found in descending order of their length.
+	 * @param k - maximum number of paths
+	 * @return at most k paths in descending order of their length
+	 */
+	public List<Path> criticalPaths(int k) {
+		List<Path> res = new ArrayList<Path>();
+		PriorityQueue<PathEntry> queue = new PriorityQueue<PathEntry>();
+		for (int v = 0; v < graph.size(); v++)
+			if (graph.predBegin(v) == graph.predEnd(v))
+				queue.add(new PathEntry(null, v, 0, tail[v]));
+
+		while (!queue.isEmpty() && res.size() < k) {
+			PathEntry e = queue.poll();
+			int prefix = e.prefix + graph.delay(e.node);
+			if (graph.succBegin(e.node) == graph.succEnd(e.node)) {
+				List<Node> nodes = new ArrayList<Node>();
+				for (PathEntry p = e; p != null; p = p.parent)
+					nodes.add(graph.node(p.node));
+				Collections.reverse(nodes);
+				res.add(new Path(prefix, nodes));
+				continue;
+			}
+			for (int j = graph.succBegin(e.node); j < graph.succEnd(e.node); j++) {
+				int s = graph.succ(j);
+				queue.add(new PathEntry(e, s, prefix, prefix + tail[s]));
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * Partial path of the best first search. Ties are broken by node index for a stable order.
+	 */
+	private static final class PathEntry implements Comparable<PathEntry> {
+		final PathEntry parent;
+		final int node, prefix, estimate;
+
+		PathEntry(PathEntry parent, int node, int prefix, int estimate) {
+			this.parent = parent;
+			this.node = node;
+			this.prefix = prefix;
+			this.estimate = estimate;
+		}
+
+		public int compareTo(PathEntry e) {
+			if (estimate != e.estimate)
+				return e.estimate - estimate;
+			return node - e.node;
+		}
+	}
+
+	/**
+	 * @return a per node report of the earliest and latest start, slack and criticality
+	 */
+	public String report() {
+		Formatter f = new Formatter();
+		f.format("Critical path length %d, latency bound %d%n", length, lmax);
+		f.format("%-24s %8s %8s %6s %s%n", "node", "earliest", "latest", "slack", "critical");
+		for (int v = 0; v < graph.size(); v++)
+			f.format("%-24s %8d %8d %6d %s%n", graph.node(v), earliest[v], latest[v], slack(v),
+					critical(v) ? "*" : "");
+		String str = f.toString();
+		f.close();
+		return str;
+	}
+}
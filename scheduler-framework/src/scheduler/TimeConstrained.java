@@ -0,0 +1,27 @@
+package scheduler;
+
+import java.util.function.Predicate;
+
+/**
+ * A scheduler working within a latency bound that can start from a given slack analysis.
+ * <p>
+ * Runs for several latency bounds of the same graph (see LatencySearch) share the graph index
+ * and the ASAP frames of one analysis, see SlackAnalysis.withLatency(). A run can be aborted
+ * between two planning steps, e.g. once its partial schedule can no longer meet a goal.
+ */
+public interface TimeConstrained {
+
+	/**
+	 * @return the maximum schedule length of the scheduler
+	 */
+	int lmax();
+
+	/**
+	 * Use the graph of the analysis to create a schedule.
+	 * @param analysis - slack analysis of the graph for lmax()
+	 * @param abort - tested with the partial schedule after every planning step, null to never
+	 * abort
+	 * @return a schedule for the graph, null if there is none or the run was aborted
+	 */
+	Schedule schedule(final SlackAnalysis analysis, Predicate<Schedule> abort);
+}
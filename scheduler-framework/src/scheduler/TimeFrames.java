@@ -0,0 +1,278 @@
+package scheduler;
+
+import java.util.Arrays;
+
+/**
+ * Live ASAP/ALAP time frames of all nodes of a graph under a growing partial schedule.
+ * <p>
+ * The frames are equal to the ones ASAP_Fixed and ALAP_Fixed(lmax) compute for the same
+ * partial schedule, but fixing a node only pushes the frames of its transitive successors
+ * forward and of its transitive predecessors backward instead of rescheduling the whole graph.
+ * Only edges within one iteration (edge weight 0) are taken into account.
+ */
+public class TimeFrames {
+	/**
+	 * Index of the scheduled graph
+	 */
+	private final GraphIndex graph;
+	/**
+	 * Earliest start time of each node
+	 */
+	private final int[] asap;
+	/**
+	 * Latest start time of each node
+	 */
+	private final int[] alap;
+	/**
+	 * Fixed state of each node
+	 */
+	private final boolean[] fixed;
+	/**
+	 * Indices of the nodes whose frame changed during the last fix
+	 */
+	private int[] changed = new int[0];
+	/**
+	 * Work stack of fix() and whether a node is on it
+	 */
+	private final int[] work;
+	private final boolean[] queued;
+	/**
+	 * Undo log of fix(): the moved nodes with their frames before the fix, and whether a node
+	 * is in the log
+	 */
+	private final int[] undo, undoAsap, undoAlap;
+	private final boolean[] moved;
+	private int logged;
+
+	/**
+	 * @param graph - the dependency graph
+	 * @param lmax - maximum schedule length, i.e. the last usable time step is lmax-1
+	 */
+	public TimeFrames(final Graph graph, int lmax) {
+		this(new GraphIndex(graph), lmax);
+	}
+
+	/**
+	 * @param graph - index of the dependency graph
+	 * @param lmax - maximum schedule length, i.e. the last usable time step is lmax-1
+	 */
+	public TimeFrames(final GraphIndex graph, int lmax) {
+		this(new SlackAnalysis(graph, lmax));
+	}
+
+	/**
+	 * Start with the frames of a slack analysis, i.e. without any fixed node.
+	 * @param analysis - slack analysis of the dependency graph for the latency bound
+	 */
+	public TimeFrames(final SlackAnalysis analysis) {
+		graph = analysis.graph();
+		int n = graph.size();
+		asap = new int[n];
+		alap = new int[n];
+		fixed = new boolean[n];
+		work = new int[n];
+		queued = new boolean[n];
+		undo = new int[n];
+		undoAsap = new int[n];
+		undoAlap = new int[n];
+		moved = new boolean[n];
+		for (int v = 0; v < n; v++) {
+			asap[v] = analysis.earliest(v);
+			alap[v] = analysis.latest(v);
+		}
+	}
+
+	/**
+	 * Fix a node to the given start time and update the frames of all depending nodes.
+	 * @param nd - node to fix
+	 * @param start - start time of the node
+	 * @return false iff the start time conflicts with an already fixed node, the frames are
+	 * left unchanged in that case
+	 */
+	public boolean fix(Node nd, int start) {
+		int v = graph.id(nd);
+		logged = 0;
+		log(v);
+		asap[v] = start;
+		alap[v] = start;
+
+		// push the earliest start times forward
+		int top = 0;
+		work[top++] = v;
+		queued[v] = true;
+		while (top > 0) {
+			int u = work[--top];
+			queued[u] = false;
+			int end = asap[u] + graph.delay(u);
+			for (int k = graph.succBegin(u); k < graph.succEnd(u); k++) {
+				int s = graph.succ(k);
+				if (asap[s] >= end)
+					continue;
+				if (fixed[s]) {
+					rollback(top);
+					return false;
+				}
+				log(s);
+				asap[s] = end;
+				if (!queued[s]) {
+					queued[s] = true;
+					work[top++] = s;
+				}
+			}
+		}
+		// pull the latest start times backward
+		work[top++] = v;
+		queued[v] = true;
+		while (top > 0) {
+			int u = work[--top];
+			queued[u] = false;
+			for (int k = graph.predBegin(u); k < graph.predEnd(u); k++) {
+				int p = graph.pred(k);
+				int latest = alap[u] - graph.delay(p);
+				if (alap[p] <= latest)
+					continue;
+				if (fixed[p]) {
+					rollback(top);
+					return false;
+				}
+				log(p);
+				alap[p] = latest;
+				if (!queued[p]) {
+					queued[p] = true;
+					work[top++] = p;
+				}
+			}
+		}
+		fixed[v] = true;
+
+		changed = Arrays.copyOf(undo, logged);
+		Arrays.sort(changed);
+		for (int u : changed)
+			moved[u] = false;
+		return true;
+	}
+
+	/**
+	 * Record the frame of a node before it is moved for the first time during a fix.
+	 */
+	private void log(int v) {
+		if (moved[v])
+			return;
+		moved[v] = true;
+		undo[logged] = v;
+		undoAsap[logged] = asap[v];
+		undoAlap[logged] = alap[v];
+		logged++;
+	}
+
+	/**
+	 * Restore the frames before the fix and clear the work stack of the given height.
+	 */
+	private void rollback(int top) {
+		for (int i = 0; i < top; i++)
+			queued[work[i]] = false;
+		for (int i = logged - 1; i >= 0; i--) {
+			asap[undo[i]] = undoAsap[i];
+			alap[undo[i]] = undoAlap[i];
+			moved[undo[i]] = false;
+		}
+		logged = 0;
+	}
+
+	/**
+	 * @param nd - node of interest
+	 * @return true iff the node has been fixed
+	 */
+	public boolean isFixed(Node nd) {
+		return fixed[graph.id(nd)];
+	}
+
+	/**
+	 * @param nd - node of interest
+	 * @return the earliest start time of the node
+	 */
+	public int asap(Node nd) {
+		return asap[graph.id(nd)];
+	}
+
+	/**
+	 * @param nd - node of interest
+	 * @return the latest start time of the node
+	 */
+	public int alap(Node nd) {
+		return alap[graph.id(nd)];
+	}
+
+	/**
+	 * Mobility interval of the node. That is the span from its ASAP start to its ALAP end.
+	 * @param nd - node of interest
+	 * @return the mobility interval of the node
+	 */
+	public Interval mobility(Node nd) {
+		int v = graph.id(nd);
+		return new Interval(asap[v], alap[v] + graph.delay(v) - 1);
+	}
+
+	/**
+	 * @return the index of the graph the frames belong to
+	 */
+	public GraphIndex graph() {
+		return graph;
+	}
+
+	/**
+	 * @return number of nodes
+	 */
+	public int size() {
+		return asap.length;
+	}
+
+	/**
+	 * @param v - index of the node
+	 * @return the earliest start time of the node
+	 */
+	public int asap(int v) {
+		return asap[v];
+	}
+
+	/**
+	 * @param v - index of the node
+	 * @return the latest start time of the node
+	 */
+	public int alap(int v) {
+		return alap[v];
+	}
+
+	/**
+	 * @param v - index of the node
+	 * @return true iff the node has been fixed
+	 */
+	public boolean isFixed(int v) {
+		return fixed[v];
+	}
+
+	/**
+	 * @return indices of the nodes whose frame changed during the last successful fix, in
+	 * ascending order. The fixed node itself is included.
+	 */
+	public int[] changed() {
+		return changed;
+	}
+
+	/**
+	 * @return true iff every node still has a non-empty frame, i.e. lmax is large enough
+	 */
+	public boolean valid() {
+		for (int i = 0; i < asap.length; i++)
+			if (asap[i] > alap[i])
+				return false;
+		return true;
+	}
+
+	/**
+	 * @return all nodes in topological order
+	 */
+	public Node[] nodes() {
+		return graph.nodes();
+	}
+}
@@ -0,0 +1,195 @@
+package scheduler;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Structured trace of the schedulers, kept in an in-memory ring buffer instead of being
+ * printed.
+ * <p>
+ * Each component has its own level, all components are off by default. Levels are set with
+ * setLevel() or -Dscheduler.trace=COMPONENT:LEVEL,... (e.g. ASAP:DEBUG or *:INFO). A call
+ * site in a hot loop checks the level first, so a disabled trace neither formats nor
+ * allocates:
+ * <pre>
+ * if (Trace.on(Trace.Component.FDS, Trace.Level.DEBUG))
+ *     Trace.log(Trace.Component.FDS, Trace.Level.DEBUG, "%s at %d", node, t);
+ * </pre>
+ * The buffer keeps the latest entries (-Dscheduler.trace.size, default 4096). It is written
+ * out on demand by dump() and by fail() if the failing component is traced.
+ */
+public final class Trace {
+
+	/**
+	 * Severity of an entry, a component traces all entries up to its level
+	 */
+	public enum Level {
+		ERROR, WARN, INFO, DEBUG
+	}
+
+	/**
+	 * Parts of the framework with their own trace level
+	 */
+	public enum Component {
+		ASAP, ALAP, FDS, LIST, IMS, RC, GRAPH, BINDING, SEARCH, FDLS, BNB
+	}
+
+	/**
+	 * Ordinal of the level of each component, -1 if it is off
+	 */
+	private static int[] levels = new int[Component.values().length];
+	/**
+	 * Ring buffer, next is the position of the next entry and count the number of entries
+	 */
+	private static String[] ring;
+	private static int next, count;
+	private static final long epoch = System.nanoTime();
+
+	static {
+		Arrays.fill(levels, -1);
+		String spec = System.getProperty("scheduler.trace");
+		if (spec != null)
+			configure(spec);
+		ring = new String[Math.max(1, Integer.getInteger("scheduler.trace.size", 4096))];
+	}
+
+	private Trace() {
+	}
+
+	/**
+	 * @param component - component of the call site
+	 * @param level - level of the entry
+	 * @return true iff entries of this level are traced for the component
+	 */
+	public static boolean on(Component component, Level level) {
+		return level.ordinal() <= levels[component.ordinal()];
+	}
+
+	/**
+	 * @param component - component of interest
+	 * @return true iff anything is traced for the component
+	 */
+	public static boolean on(Component component) {
+		return levels[component.ordinal()] >= 0;
+	}
+
+	/**
+	 * @param component - component to configure
+	 * @param level - highest level traced, null switches the component off
+	 */
+	public static synchronized void setLevel(Component component, Level level) {
+		int[] l = levels.clone();
+		l[component.ordinal()] = level == null ? -1 : level.ordinal();
+		levels = l;
+	}
+
+	/**
+	 * Set the levels from a comma separated list of COMPONENT:LEVEL pairs, * stands for all
+	 * components. Components not listed keep their level.
+	 * @param spec - the list, e.g. "FDS:DEBUG,RC:INFO"
+	 * @throws IllegalArgumentException on unknown components or levels
+	 */
+	public static synchronized void configure(String spec) {
+		for (String s : spec.split(",")) {
+			s = s.trim();
+			if (s.isEmpty())
+				continue;
+			String[] p = s.split(":");
+			if (p.length != 2)
+				throw new IllegalArgumentException("Expected COMPONENT:LEVEL but found " + s);
+			Level level = p[1].equalsIgnoreCase("OFF") ? null : Level.valueOf(p[1].toUpperCase(Locale.ROOT));
+			if (p[0].equals("*"))
+				for (Component c : Component.values())
+					setLevel(c, level);
+			else
+				setLevel(Component.valueOf(p[0].toUpperCase(Locale.ROOT)), level);
+		}
+	}
+
+	/**
+	 * Switch all components off and clear the buffer.
+	 */
+	public static synchronized void reset() {
+		int[] l = new int[Component.values().length];
+		Arrays.fill(l, -1);
+		levels = l;
+		clear();
+	}
+
+	/**
+	 * @param capacity - number of entries kept, the buffer is cleared
+	 */
+	public static synchronized void setCapacity(int capacity) {
+		ring = new String[Math.max(1, capacity)];
+		next = count = 0;
+	}
+
+	/**
+	 * Add an entry if the component traces the level.
+	 * @param component - component of the call site
+	 * @param level - level of the entry
+	 * @param format - format string, see String.format()
+	 * @param args - the arguments of the format string
+	 */
+	public static void log(Component component, Level level, String format, Object... args) {
+		if (!on(component, level))
+			return;
+		String msg = args.length == 0 ? format : String.format(Locale.ROOT, format, args);
+		String entry = String.format(Locale.ROOT, "%10.3f ms %-5s %-7s [%s] %s", (System.nanoTime() - epoch) / 1e6,
+				level, component, Thread.currentThread().getName(), msg);
+		synchronized (Trace.class) {
+			ring[next] = entry;
+			next = (next + 1) % ring.length;
+			count = Math.min(count + 1, ring.length);
+		}
+	}
+
+	/**
+	 * Report a failure: the message is printed to System.err and traced as an error. If the
+	 * component is traced, the buffer leading up to the failure is dumped as well.
+	 * @param component - the failing component
+	 * @param format - format string, see String.format()
+	 * @param args - the arguments of the format string
+	 */
+	public static void fail(Component component, String format, Object... args) {
+		String msg = String.format(Locale.ROOT, format, args);
+		System.err.println(msg);
+		if (!on(component))
+			return;
+		log(component, Level.ERROR, "%s", msg);
+		dump(System.err);
+	}
+
+	/**
+	 * @return the entries in the buffer, oldest first
+	 */
+	public static synchronized List<String> entries() {
+		List<String> res = new ArrayList<String>(count);
+		for (int i = 0; i < count; i++)
+			res.add(ring[(next - count + i + ring.length) % ring.length]);
+		return res;
+	}
+
+	/**
+	 * Print the entries in the buffer, oldest first.
+	 * @param out - the stream to print to
+	 */
+	public static void dump(PrintStream out) {
+		List<String> entries = entries();
+		out.printf("--- trace: %d entries ---%n", entries.size());
+		for (String e : entries)
+			out.println(e);
+		out.flush();
+	}
+
+	/**
+	 * Drop all entries.
+	 */
+	public static synchronized void clear() {
+		Arrays.fill(ring, null);
+		next = count = 0;
+	}
+}
@@ -0,0 +1,43 @@
+package scheduler.testing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import scheduler.*;
+
+/**
+ * Resources and checks shared by the tests of the resource constrained schedulers.
+ */
+final class Fixtures {
+
+	private Fixtures() {
+	}
+
+	static RC resources(String fn) throws Exception {
+		RC rc = new RC();
+		rc.read(fn);
+		return rc;
+	}
+
+	/**
+	 * Check dependencies, resource compatibility and exclusive use of the resource instances.
+	 */
+	static void check(Graph graph, RC rc, Schedule schedule) {
+		assertNotNull(schedule);
+		assertEquals(graph.size(), schedule.size().intValue());
+		assertNull(schedule.validate(), "Dependencies must be respected");
+		Map<String, Map<Integer, Node>> busy = new HashMap<String, Map<Integer, Node>>();
+		for (Node node : graph) {
+			String res = schedule.resource(node);
+			assertNotNull(res, "Every node must be bound to a resource");
+			assertTrue(rc.getAllRes().get(res).contains(node.getRT()), res + " does not support " + node.getRT());
+			Interval slot = schedule.slot(node);
+			assertEquals(node.getDelay(), slot.ubound - slot.lbound + 1);
+			Map<Integer, Node> steps = busy.computeIfAbsent(res, k -> new HashMap<Integer, Node>());
+			for (int t = slot.lbound; t < schedule.busyUntil(node); t++)
+				assertNull(steps.put(t, node), res + " is used twice at " + t);
+		}
+	}
+}
@@ -81,6 +81,24 @@ class Test_ASAP_Fixed {
 				"Schedule was delivered where no legal schedule is possible");
 	}
 	
+	@Test
+	void testLargeGraph() {
+		Graph large = new Dot_reader(false).parse("graphs/CubeHash512Digest-sixteenRounds-2-2891.dot");
+		int lmax = 40;
+		Schedule asap = new ASAP().schedule(large);
+		Schedule alap = new ALAP(lmax).schedule(large);
+		Schedule asap_fixed = new ASAP_Fixed().schedule(large, new Schedule());
+		Schedule alap_fixed = new ALAP_Fixed(lmax).schedule(large, new Schedule());
+
+		for (Node node : large) {
+			assertEquals(asap.slot(node), asap_fixed.slot(node), "ASAP_Fixed must match ASAP for " + node);
+			assertEquals(alap.slot(node), alap_fixed.slot(node), "ALAP_Fixed must match ALAP for " + node);
+		}
+		assertEquals(lmax, alap_fixed.max() + 1, "ALAP_Fixed must end at the latency bound");
+		checkIntervalsAndDependencies(asap_fixed);
+		checkIntervalsAndDependencies(alap_fixed);
+	}
+	
 	void checkIntervalsAndDependencies(Schedule schedule) {
 		for (Node node : schedule.getNodes().keySet()) {
 			int startTime = schedule.getNodes().get(node).lbound;
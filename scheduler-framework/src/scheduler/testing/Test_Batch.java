@@ -0,0 +1,127 @@
+package scheduler.testing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import scheduler.*;
+
+class Test_Batch {
+
+	@TempDir
+	Path dir;
+
+	private String[] options;
+
+	/**
+	 * Two good graphs and a broken one, a good resource file and a missing one, two schedulers:
+	 * 3 x 2 x 2 runs of which the 4 with the good files succeed.
+	 */
+	@BeforeEach
+	void setUp() throws Exception {
+		for (String fn : new String[] { "graphs/IDCT.dot", "graphs/lectureLIST.dot" })
+			Files.copy(Paths.get(fn), dir.resolve(Paths.get(fn).getFileName()));
+		Files.writeString(dir.resolve("broken.dot"), "this is not a graph");
+		options = new String[] { "-g", dir + "/*.dot", "-r", "resources/lectureLIST_2res", "-r",
+				dir.resolve("missing_res").toString(), "-a", "ASAP", "-a", "LIST", "-j", "2" };
+	}
+
+	private List<String> run(String format) throws Exception {
+		Path out = dir.resolve("out." + format);
+		List<String> args = new ArrayList<String>(List.of(options));
+		args.addAll(List.of("-f", format, "-o", out.toString()));
+		new Batch(args.toArray(new String[0])).run();
+		return Files.readAllLines(out);
+	}
+
+	/**
+	 * Split a CSV line, fields may be quoted
+	 */
+	private static List<String> fields(String line) {
+		List<String> res = new ArrayList<String>();
+		StringBuilder sb = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (quoted && c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+				sb.append('"');
+				i++;
+			} else if (c == '"') {
+				quoted = !quoted;
+			} else if (c == ',' && !quoted) {
+				res.add(sb.toString());
+				sb.setLength(0);
+			} else {
+				sb.append(c);
+			}
+		}
+		res.add(sb.toString());
+		return res;
+	}
+
+	@Test
+	void testCSV() throws Exception {
+		List<String> lines = run("csv");
+		assertEquals(1 + 3 * 2 * 2, lines.size());
+		List<String> header = fields(lines.get(0));
+		assertEquals(8 + RT.values().length + 2, header.size());
+		int ok = 0;
+		for (String line : lines.subList(1, lines.size())) {
+			List<String> f = fields(line);
+			assertEquals(header.size(), f.size(), line);
+			String status = f.get(header.indexOf("status"));
+			boolean good = !f.get(0).endsWith("broken.dot") && !f.get(1).endsWith("missing_res");
+			assertEquals(good ? "ok" : "error", status, line);
+			if (good) {
+				ok++;
+				assertTrue(Integer.parseInt(f.get(header.indexOf("lmax"))) > 0);
+				assertTrue(Integer.parseInt(f.get(header.indexOf("length"))) > 0);
+				assertTrue(Integer.parseInt(f.get(header.indexOf("units"))) > 0);
+				assertTrue(Double.parseDouble(f.get(header.indexOf("cost"))) > 0);
+				for (RT rt : RT.values())
+					Double.parseDouble(f.get(header.indexOf(rt.name())));
+				assertEquals("", f.get(header.indexOf("error")));
+			} else {
+				assertFalse(f.get(header.indexOf("error")).isEmpty());
+			}
+			assertTrue(Double.parseDouble(f.get(header.indexOf("time_ms"))) >= 0);
+		}
+		assertEquals(4, ok, "The runs with good files must complete");
+	}
+
+	@Test
+	void testJSON() throws Exception {
+		Pattern number = Pattern.compile("\"(lmax|length|cost|units|time_ms)\":([^,}]*)");
+		Pattern status = Pattern.compile("\"status\":\"(\\w+)\"");
+		List<String> lines = run("json");
+		assertEquals(3 * 2 * 2, lines.size());
+		int ok = 0;
+		for (String line : lines) {
+			assertTrue(line.startsWith("{\"graph\":") && line.endsWith("}"), line);
+			Matcher m = number.matcher(line);
+			int found = 0;
+			while (m.find()) {
+				Double.parseDouble(m.group(2));
+				found++;
+			}
+			assertEquals(5, found, line);
+			m = status.matcher(line);
+			assertTrue(m.find(), line);
+			boolean good = !line.contains("broken.dot") && !line.contains("missing_res");
+			assertEquals(good ? "ok" : "error", m.group(1), line);
+			if (good)
+				ok++;
+		}
+		assertEquals(4, ok, "The runs with good files must complete");
+	}
+}
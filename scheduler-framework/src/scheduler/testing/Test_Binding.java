@@ -0,0 +1,74 @@
+package scheduler.testing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import scheduler.*;
+
+class Test_Binding {
+
+	/**
+	 * Every node is bound and no unit executes two nodes at once.
+	 */
+	private static void check(Schedule schedule, Binding binding) {
+		Schedule bound = binding.schedule();
+		assertEquals(schedule.size(), bound.size());
+		Map<String, Map<Integer, Node>> busy = new HashMap<String, Map<Integer, Node>>();
+		for (Node node : schedule.nodes()) {
+			assertEquals(schedule.slot(node), bound.slot(node));
+			String unit = bound.resource(node);
+			assertNotNull(unit, "Every node must be bound to a unit");
+			Map<Integer, Node> steps = busy.computeIfAbsent(unit, k -> new HashMap<Integer, Node>());
+			for (int t = bound.slot(node).lbound; t < bound.busyUntil(node); t++)
+				assertNull(steps.put(t, node), unit + " is used twice at " + t);
+		}
+		assertEquals(busy.size(), binding.units());
+	}
+
+	/**
+	 * Without resource constraints left-edge needs exactly the peak usage of each type.
+	 */
+	@Test
+	void testPeak() {
+		Graph graph = new Dot_reader(false).parse("graphs/serpent.dot");
+		Schedule schedule = new ASAP().schedule(graph);
+		Binding binding = Binding.bind(schedule, null);
+		check(schedule, binding);
+		int units = 0;
+		for (RT rt : RT.values()) {
+			assertEquals(schedule.peak(rt), binding.used(rt), rt.name);
+			assertEquals(binding.used(rt), binding.extra(rt));
+			units += binding.used(rt);
+		}
+		assertEquals(units, binding.units());
+		assertTrue(schedule.nodes().stream().allMatch(nd -> schedule.resource(nd) == null),
+				"Binding must not change the schedule");
+	}
+
+	/**
+	 * A LIST schedule fits the resources it was built for.
+	 */
+	@Test
+	void testResources() throws Exception {
+		Graph graph = new Dot_reader(false).parse("graphs/serpent.dot");
+		RC rc = new RC();
+		rc.read("resources/heterogenous_4res");
+		Schedule schedule = new LIST(rc).schedule(graph);
+		Binding binding = Binding.bind(schedule, rc);
+		check(schedule, binding);
+		assertTrue(binding.feasible(), binding.report());
+		Set<String> units = new HashSet<String>();
+		for (Node node : graph) {
+			String unit = binding.schedule().resource(node);
+			assertTrue(rc.getAllRes().get(unit).contains(node.getRT()), unit + " does not support " + node.getRT());
+			units.add(unit);
+		}
+		assertTrue(units.size() <= rc.getAllRes().size());
+	}
+}
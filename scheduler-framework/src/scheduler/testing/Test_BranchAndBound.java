@@ -0,0 +1,58 @@
+package scheduler.testing;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static scheduler.testing.Fixtures.*;
+
+import org.junit.jupiter.api.Test;
+
+import scheduler.*;
+
+class Test_BranchAndBound {
+
+	@Test
+	void testLectureExample() throws Exception {
+		Graph graph = new Dot_reader(false).parse("graphs/lectureLIST.dot");
+		RC rc = resources("resources/lectureLIST_2res");
+		BranchAndBound bnb = new BranchAndBound(rc, 0, 2);
+		Schedule schedule = bnb.schedule(graph);
+		check(graph, rc, schedule);
+		assertTrue(bnb.optimal());
+		assertEquals(0.0, bnb.gap());
+		assertEquals(bnb.upperBound(), schedule.length());
+		assertTrue(schedule.length() <= new LIST(rc).schedule(graph).length());
+		assertTrue(schedule.length() >= graph.analyze(0).criticalPathLength());
+	}
+
+	/**
+	 * The search improves on the first schedule from LIST and proves the result optimal.
+	 */
+	@Test
+	void testBeatsLIST() throws Exception {
+		Graph graph = new Dot_reader(false).parse("graphs/FIR-main-75-264.dot");
+		RC rc = resources("resources/heterogenous_4res");
+		BranchAndBound bnb = new BranchAndBound(rc, 0, 4);
+		Schedule schedule = bnb.schedule(graph);
+		check(graph, rc, schedule);
+		assertTrue(bnb.optimal());
+		assertTrue(schedule.length() < new LIST(rc).schedule(graph).length());
+	}
+
+	/**
+	 * At the time limit the best schedule comes with a valid gap.
+	 */
+	@Test
+	void testTimeLimit() throws Exception {
+		Graph graph = new Dot_reader(false).parse("graphs/FFT-fft3-688-929.dot");
+		RC rc = resources("resources/heterogenous_4res");
+		BranchAndBound bnb = new BranchAndBound(rc, 500, 4);
+		long start = System.nanoTime();
+		Schedule schedule = bnb.schedule(graph);
+		long ms = (System.nanoTime() - start) / 1000000;
+		check(graph, rc, schedule);
+		assertTrue(ms < 5000, "The time limit must be respected, took " + ms + " ms");
+		assertTrue(bnb.lowerBound() <= bnb.upperBound());
+		assertTrue(bnb.lowerBound() >= graph.analyze(0).criticalPathLength());
+		assertEquals(bnb.upperBound(), schedule.length());
+		assertTrue(bnb.gap() >= 0 && bnb.gap() < 1);
+	}
+}
@@ -0,0 +1,59 @@
+package scheduler.testing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import scheduler.*;
+
+class Test_CycleAnalysis {
+
+	@Test
+	void testCycles() {
+		Graph graph = new Dot_reader(false).read("digraph g {\n"
+				+ "a -> b -> c -> a; c -> d;\n"
+				+ "e -> e; d -> f;\n"
+				+ "}\n");
+		CycleAnalysis ca = graph.validation();
+
+		assertFalse(ca.valid());
+		assertEquals(2, ca.cycles().size(), ca.report());
+		for (List<Node> cycle : ca.cycles()) {
+			assertEquals(cycle.get(0), cycle.get(cycle.size() - 1), "A cycle must end at its start");
+			for (int k = 0; k + 1 < cycle.size(); k++)
+				assertTrue(cycle.get(k).successors().contains(cycle.get(k + 1)), "Not an edge: " + cycle);
+		}
+		assertNotNull(graph.validate());
+	}
+
+	@Test
+	void testRecurrences() {
+		Graph graph = new Dot_reader(true).parse("graphs/testCyclic.dot");
+		CycleAnalysis ca = graph.validation();
+
+		assertTrue(ca.valid(), "Loop-carried edges must not count as cycles");
+		assertNull(graph.validate());
+		// N1 -> N3 -> N5 -> N6 -> N1 over the loop-carried edge
+		assertEquals(1, ca.recurrences().size());
+		assertEquals(4, ca.recurrences().get(0).size());
+		assertFalse(ca.recurrences().get(0).contains(new Node("N2_MUL")));
+	}
+
+	@Test
+	void testDeepGraph() {
+		// a chain too deep for a recursive search
+		StringBuilder sb = new StringBuilder("digraph chain {\n");
+		int n = 200000;
+		for (int i = 0; i < n; i++)
+			sb.append("n").append(i).append(" -> n").append(i + 1).append(";\n");
+		sb.append("n").append(n).append(" -> n0 [label=\"2\"];\n}\n");
+		Graph graph = new Dot_reader(true).read(sb);
+		CycleAnalysis ca = graph.validation();
+
+		assertTrue(ca.valid());
+		assertEquals(1, ca.recurrences().size());
+		assertEquals(n + 1, ca.recurrences().get(0).size());
+	}
+}
@@ -0,0 +1,50 @@
+package scheduler.testing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import scheduler.*;
+
+class Test_DistributionGraph {
+
+	private static String graphFile = "graphs/lectureExample.dot";
+	private static int lmax = 20;
+
+	@Test
+	void testProbabilitiesSumToInitiation() {
+		Graph graph = new Dot_reader(false).parse(graphFile);
+		TimeFrames frames = new TimeFrames(graph, lmax);
+		DistributionGraph dg = new DistributionGraph(frames, lmax);
+
+		for (RT rt : RT.values()) {
+			double expected = 0;
+			for (Node node : graph)
+				if (node.getRT() == rt)
+					expected += node.getInitiation();
+			double sum = 0;
+			for (int t = 0; t < lmax; t++)
+				sum += dg.get(rt, t);
+			assertEquals(expected, sum, 1e-9, "Probabilities of " + rt + " must add up to the initiation intervals");
+		}
+	}
+
+	@Test
+	void testIncrementalUpdate() {
+		Graph graph = new Dot_reader(false).parse(graphFile);
+		TimeFrames frames = new TimeFrames(graph, lmax);
+		DistributionGraph dg = new DistributionGraph(frames, lmax);
+
+		for (Node node : frames.nodes()) {
+			assertTrue(frames.fix(node, frames.alap(node)));
+			for (int v : frames.changed())
+				dg.add(v, frames.asap(v), frames.alap(v));
+
+			DistributionGraph reference = new DistributionGraph(frames, lmax);
+			for (RT rt : RT.values())
+				for (int t = 0; t < lmax; t++)
+					assertEquals(reference.get(rt, t), dg.get(rt, t), 1e-9);
+		}
+	}
+
+}
@@ -0,0 +1,86 @@
+package scheduler.testing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import scheduler.*;
+
+class Test_Dot_reader {
+
+	private static final String dot = "digraph depgraph {\n"
+			+ "node [shape=box]; // default attributes\n"
+			+ "a [label=\"1:IMUL\",shape=box]; b [label=\"2:IADD\"]; c;\n"
+			+ "/* chain */ a -> b -> c;\n"
+			+ "c -> a [constraint=false,color=blue,label=\"1\"];\n"
+			+ "}digraph depgraph {\n"
+			+ "c -> d;\n"
+			+ "}\n";
+
+	@Test
+	void testStatements() {
+		Graph graph = new Dot_reader(false).read(dot);
+		Node a = graph.get(new Node("a")), b = graph.get(new Node("b"));
+		Node c = graph.get(new Node("c")), d = graph.get(new Node("d"));
+
+		assertEquals(4, graph.size(), "Both digraph blocks must be merged");
+		assertEquals(RT.MUL, a.getRT());
+		assertEquals(RT.ADD, b.getRT());
+		assertTrue(a.successors().contains(b));
+		assertTrue(b.successors().contains(c));
+		assertTrue(c.successors().contains(d));
+		assertFalse(c.allSuccessors().containsKey(a), "Back edges must be skipped");
+	}
+
+	@Test
+	void testBackEdges() {
+		Graph graph = new Dot_reader(true).read(dot);
+		Node a = graph.get(new Node("a")), c = graph.get(new Node("c"));
+
+		assertEquals(Integer.valueOf(1), c.allSuccessors().get(a));
+		assertFalse(c.successors().contains(a), "Back edges are not intra-iteration edges");
+	}
+
+	@Test
+	void testErrorPosition() {
+		DotParseException e = assertThrows(DotParseException.class,
+				() -> new Dot_reader(false).read("digraph g {\n  a -> b;\n  a -> ;\n}\n"));
+		assertEquals(3, e.line);
+		assertEquals(8, e.column);
+
+		e = assertThrows(DotParseException.class, () -> new Dot_reader(false).read("digraph g {\n  a -> b\n}"));
+		assertEquals(3, e.line);
+		assertEquals(1, e.column);
+	}
+
+	@Test
+	void testOpcodes() {
+		Dot_reader dr = new Dot_reader(false);
+		Graph graph = dr.read("digraph g {\n"
+				+ "a [label=\"770:ISTORE (false)\"]; b [label=\"d23 (Ss:7) - 46:IMUL\"];\n"
+				+ "c [label=\"19:ERROR\"]; d [label=\"5:DMA_LOAD(ref)\"]; e [label=\"7:FOO\"];\n"
+				+ "a -> b -> c -> d -> e -> N1_ADD;\n"
+				+ "}\n");
+
+		assertEquals(RT.MEM, graph.get(new Node("a")).getRT());
+		assertEquals(RT.MUL, graph.get(new Node("b")).getRT());
+		assertEquals(RT.OTHER, graph.get(new Node("c")).getRT(), "ERROR is no OR");
+		assertEquals(RT.MEM, graph.get(new Node("d")).getRT());
+		assertEquals(RT.OTHER, graph.get(new Node("e")).getRT());
+		assertEquals(RT.ADD, graph.get(new Node("N1_ADD")).getRT(), "Nodes without label are classified by id");
+		assertEquals(1, dr.unknownOpcodes().size());
+		assertEquals(Integer.valueOf(1), dr.unknownOpcodes().get("FOO"));
+	}
+
+	@Test
+	void testCorpusFile() {
+		Graph graph = new Dot_reader(true).parse("graphs/testCyclic.dot");
+		int edges = 0, carried = 0;
+		for (Node node : graph) {
+			edges += node.successors().size();
+			carried += node.allSuccessors().size() - node.successors().size();
+		}
+		assertTrue(edges > 0);
+		assertEquals(1, carried);
+	}
+}
@@ -0,0 +1,45 @@
+package scheduler.testing;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static scheduler.testing.Fixtures.*;
+
+import org.junit.jupiter.api.Test;
+
+import scheduler.*;
+
+class Test_FDLS {
+
+	@Test
+	void testLectureExample() throws Exception {
+		Graph graph = new Dot_reader(false).parse("graphs/lectureLIST.dot");
+		RC rc = resources("resources/lectureLIST_2res");
+		FDLS fdls = new FDLS(rc);
+		Schedule schedule = fdls.schedule(graph);
+		check(graph, rc, schedule);
+		assertTrue(schedule.length() >= graph.analyze(0).criticalPathLength());
+		assertTrue(schedule.max() < fdls.latency(), "The frames must cover the schedule");
+	}
+
+	/**
+	 * With few resources the latency bound grows beyond the initial one.
+	 */
+	@Test
+	void testGrowingLatency() throws Exception {
+		Graph graph = new Dot_reader(false).parse("graphs/FIR-main-75-264.dot");
+		RC rc = resources("resources/homogenous_2res");
+		FDLS fdls = new FDLS(rc, 0);
+		Schedule schedule = fdls.schedule(graph);
+		check(graph, rc, schedule);
+		assertTrue(fdls.latency() > graph.analyze(0).criticalPathLength());
+		assertTrue(schedule.max() < fdls.latency());
+		assertTrue(Binding.bind(schedule, rc).feasible());
+	}
+
+	@Test
+	void testLargeGraph() throws Exception {
+		Graph graph = new Dot_reader(false).parse("graphs/serpent.dot");
+		RC rc = resources("resources/heterogenous_4res");
+		Schedule schedule = new FDLS(rc).schedule(graph);
+		check(graph, rc, schedule);
+	}
+}
@@ -0,0 +1,75 @@
+package scheduler.testing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import scheduler.*;
+
+class Test_FDS {
+
+	private static Graph graph;
+	private static String graphFile = "graphs/FIR-main-75-264.dot";
+	private static int lmax = 40;
+
+	@BeforeAll
+	static void setUpBeforeClass() throws Exception {
+		Dot_reader dr = new Dot_reader(false);
+		graph = dr.parse(graphFile);
+	}
+
+	@Test
+	void testFDSLegal() {
+		Schedule fds = new FDS(null, lmax).schedule(graph);
+
+		assertEquals(graph.size(), fds.size().intValue(), "All nodes must be scheduled");
+		assertTrue(fds.min() >= 0 && fds.max() < lmax, "Schedule exceeds the latency bound");
+		checkIntervalsAndDependencies(fds);
+	}
+
+	@Test
+	void testFDSTooShort() {
+		assertNull(new FDS(null, 5).schedule(graph), "Schedule was delivered where no legal schedule is possible");
+	}
+
+	@Test
+	void testFDSNotWorseThanASAP() {
+		Schedule asap = new ASAP_Fixed().schedule(graph, new Schedule());
+		Schedule fds = new FDS(null, asap.length()).schedule(graph);
+
+		assertTrue(fds.cost() <= asap.cost(), "FDS should balance the resource usage of ASAP");
+	}
+
+	@Test
+	void testParallelMatchesSequential() {
+		Schedule sequential = new FDS(null, lmax).schedule(graph);
+		Schedule parallel = new FDS(null, lmax, 4).schedule(graph);
+
+		assertEquals(sequential.getNodes(), parallel.getNodes(), "Parallel mode must deliver the sequential schedule");
+	}
+
+	@Test
+	void testLookahead() {
+		Schedule lookahead = new FDS(null, lmax, 1, true).schedule(graph);
+
+		assertEquals(graph.size(), lookahead.size().intValue(), "All nodes must be scheduled");
+		assertTrue(lookahead.min() >= 0 && lookahead.max() < lmax, "Schedule exceeds the latency bound");
+		checkIntervalsAndDependencies(lookahead);
+		assertEquals(lookahead.getNodes(), new FDS(null, lmax, 4, true).schedule(graph).getNodes(),
+				"Parallel mode must deliver the sequential schedule");
+	}
+
+	void checkIntervalsAndDependencies(Schedule schedule) {
+		for (Node node : schedule.getNodes().keySet()) {
+			int startTime = schedule.getNodes().get(node).lbound;
+			int endTime = schedule.getNodes().get(node).ubound;
+			assertEquals(endTime - startTime, node.getDelay() - 1, "Incorrect interval length");
+			for (Node successor : node.allSuccessors().keySet()) {
+				int succStartTime = schedule.getNodes().get(successor).lbound;
+				assertTrue(succStartTime > endTime, "Data dependency violated");
+			}
+		}
+	}
+
+}
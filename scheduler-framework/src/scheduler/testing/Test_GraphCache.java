@@ -0,0 +1,74 @@
+package scheduler.testing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import scheduler.*;
+
+class Test_GraphCache {
+
+	@TempDir
+	Path dir;
+
+	/**
+	 * @return ids, resource types and edges of all nodes in a canonical order
+	 */
+	private static String dump(Graph graph) {
+		TreeMap<String, String> res = new TreeMap<String, String>();
+		for (Node node : graph) {
+			TreeMap<String, Integer> succ = new TreeMap<String, Integer>();
+			for (Map.Entry<Node, Integer> e : node.allSuccessors().entrySet())
+				succ.put(e.getKey().id, e.getValue());
+			res.put(node.id, node.getRT() + " " + succ);
+		}
+		return res.toString();
+	}
+
+	@Test
+	void testRoundTrip() throws Exception {
+		for (String fn : new String[] { "graphs/testCyclic.dot", "graphs/serpent.dot" }) {
+			Path dot = dir.resolve(Paths.get(fn).getFileName());
+			Files.copy(Paths.get(fn), dot);
+			Path cache = Paths.get(dot + GraphCache.SUFFIX);
+
+			for (boolean backEdges : new boolean[] { false, true }) {
+				String expected = dump(new Dot_reader(backEdges).parse(fn));
+				assertEquals(expected, dump(GraphCache.load(dot.toString(), backEdges)));
+				assertTrue(Files.exists(cache));
+				assertEquals(expected, dump(GraphCache.load(dot.toString(), backEdges)), "Graph read from the cache");
+			}
+		}
+	}
+
+	@Test
+	void testInvalidation() throws Exception {
+		Path dot = dir.resolve("g.dot");
+		Path cache = Paths.get(dot + GraphCache.SUFFIX);
+		Files.writeString(dot, "digraph g {\na_ADD -> b_MUL;\n}\n");
+		assertEquals(2, GraphCache.load(dot.toString(), false).size());
+
+		// same content, new modification time: the cache is still valid
+		Files.setLastModifiedTime(dot, FileTime.fromMillis(Files.getLastModifiedTime(dot).toMillis() + 5000));
+		assertEquals(2, GraphCache.load(dot.toString(), false).size());
+
+		// same size, different content
+		Files.writeString(dot, "digraph g {\na_ADD -> c_MUL;\n}\n");
+		Files.setLastModifiedTime(dot, FileTime.fromMillis(Files.getLastModifiedTime(dot).toMillis() + 10000));
+		Graph graph = GraphCache.load(dot.toString(), false);
+		assertNotNull(graph.get(new Node("c_MUL")));
+		assertNull(graph.get(new Node("b_MUL")));
+
+		// corrupt cache
+		Files.write(cache, new byte[] { 1, 2, 3 });
+		assertEquals(2, GraphCache.load(dot.toString(), false).size());
+	}
+}
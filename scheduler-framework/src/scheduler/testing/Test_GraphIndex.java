@@ -0,0 +1,53 @@
+package scheduler.testing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import scheduler.*;
+
+class Test_GraphIndex {
+
+	@Test
+	void testTopologicalOrder() {
+		Graph graph = new Dot_reader(false).parse("graphs/FIR-main-75-264.dot");
+		GraphIndex gi = new GraphIndex(graph);
+
+		assertTrue(gi.isAcyclic());
+		assertEquals(graph.size(), gi.size());
+		int edges = 0;
+		for (int v = 0; v < gi.size(); v++) {
+			Node nd = gi.node(v);
+			assertEquals(v, gi.id(nd));
+			assertEquals(nd.getDelay(), gi.delay(v));
+			assertEquals(nd.getRT(), gi.rt(v));
+			assertEquals(nd.successors().size(), gi.succEnd(v) - gi.succBegin(v));
+			assertEquals(nd.predecessors().size(), gi.predEnd(v) - gi.predBegin(v));
+			for (int k = gi.succBegin(v); k < gi.succEnd(v); k++) {
+				assertTrue(gi.succ(k) > v, "Successor must have a higher index");
+				assertTrue(nd.successors().contains(gi.node(gi.succ(k))));
+				edges++;
+			}
+		}
+		assertEquals(edges, gi.edges());
+		assertEquals(0, gi.carriedEdges());
+	}
+
+	@Test
+	void testLoopCarriedEdges() {
+		Graph graph = new Dot_reader(true).parse("graphs/testCyclic.dot");
+		GraphIndex gi = new GraphIndex(graph);
+
+		assertTrue(gi.isAcyclic(), "Loop-carried edges must not break the topological order");
+		assertEquals(1, gi.carriedEdges());
+		int n6 = gi.id(new Node("N6_ADD"));
+		int n1 = gi.id(new Node("N1_ADD"));
+		assertEquals(1, gi.carriedSuccEnd(n6) - gi.carriedSuccBegin(n6));
+		assertEquals(n1, gi.carriedSucc(gi.carriedSuccBegin(n6)));
+		assertEquals(1, gi.carriedSuccDistance(gi.carriedSuccBegin(n6)));
+		assertEquals(n6, gi.carriedPred(gi.carriedPredBegin(n1)));
+		assertEquals(1, gi.carriedPredDistance(gi.carriedPredBegin(n1)));
+		assertEquals(0, gi.id(new Node("N1_ADD")), "The only root must come first");
+	}
+
+}
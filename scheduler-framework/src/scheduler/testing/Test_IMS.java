@@ -0,0 +1,59 @@
+package scheduler.testing;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static scheduler.testing.Fixtures.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import scheduler.*;
+
+class Test_IMS {
+
+	/**
+	 * Check all edges including the loop-carried ones and the exclusive use of the resources
+	 * modulo II.
+	 */
+	private static void check(Graph graph, RC rc, ModuloSchedule ms) {
+		assertNotNull(ms);
+		assertTrue(ms.ii() >= ms.mii());
+		Map<String, Node> mrt = new HashMap<String, Node>();
+		for (Node node : graph) {
+			for (Map.Entry<Node, Integer> e : node.allSuccessors().entrySet()) {
+				int bound = ms.start(node) + node.getDelay() - ms.ii() * e.getValue();
+				assertTrue(ms.start(e.getKey()) >= bound, node + " -> " + e.getKey() + " violated");
+			}
+			String res = ms.resource(node);
+			assertTrue(rc.getAllRes().get(res).contains(node.getRT()));
+			for (int k = 0; k < node.getInitiation(); k++)
+				assertNull(mrt.put(res + "@" + (ms.start(node) + k) % ms.ii(), node), res + " is used twice");
+		}
+		assertEquals(ms.stages() - 1, ms.prologue());
+		assertTrue(ms.length() <= ms.stages() * ms.ii());
+	}
+
+	@Test
+	void testCyclic() throws Exception {
+		Graph graph = new Dot_reader(true).parse("graphs/testCyclic.dot");
+		RC rc = resources("resources/homogenous_4res");
+		ModuloSchedule ms = new IMS(rc).modulo(graph);
+		check(graph, rc, ms);
+		assertEquals(4, ms.recMII(), "N1 -> N3 -> N5 -> N6 -> N1 has four ADDs and distance 1");
+		assertEquals(ms.mii(), ms.ii());
+	}
+
+	@Test
+	void testCorpus() throws Exception {
+		for (String fn : new String[] { "graphs/AESrkgcyclic.dot", "graphs/ECOH256Digest-compress-49-121.dot",
+				"graphs/CubeHash512Digest-sixteenRounds-2-2891.dot" }) {
+			Graph graph = new Dot_reader(true).parse(fn);
+			for (String res : new String[] { "resources/heterogenous_4res", "resources/homogenous_16res" }) {
+				RC rc = resources(res);
+				ModuloSchedule ms = new IMS(rc).modulo(graph);
+				check(graph, rc, ms);
+			}
+		}
+	}
+}
@@ -0,0 +1,49 @@
+package scheduler.testing;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static scheduler.testing.Fixtures.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import scheduler.*;
+
+class Test_LIST {
+
+	@Test
+	void testLectureExample() throws Exception {
+		Graph graph = new Dot_reader(false).parse("graphs/lectureLIST.dot");
+		RC rc = resources("resources/lectureLIST_2res");
+		for (LIST.Priorities p : LIST.Priorities.values()) {
+			Schedule schedule = new LIST(rc, p).schedule(graph);
+			check(graph, rc, schedule);
+			assertTrue(schedule.length() >= graph.analyze(0).criticalPathLength());
+		}
+	}
+
+	@Test
+	void testUnconstrained(@TempDir Path dir) throws Exception {
+		// with one universal instance per node LIST is as fast as ASAP
+		Graph graph = new Dot_reader(false).parse("graphs/FIR-main-75-264.dot");
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < graph.size(); i++)
+			sb.append("RES").append(i).append("\tOTHER ADD SUB DIV MULT SH AND OR CMP MEM\n");
+		Path fn = dir.resolve("unlimited");
+		Files.writeString(fn, sb);
+		RC rc = resources(fn.toString());
+		Schedule schedule = new LIST(rc).schedule(graph);
+		check(graph, rc, schedule);
+		assertEquals(graph.analyze(0).criticalPathLength(), schedule.length().intValue());
+	}
+
+	@Test
+	void testLargeGraph() throws Exception {
+		Graph graph = new Dot_reader(false).parse("graphs/serpent.dot");
+		RC rc = resources("resources/heterogenous_4res");
+		Schedule schedule = new LIST(rc, LIST.Priorities.MOBILITY).schedule(graph);
+		check(graph, rc, schedule);
+	}
+}
@@ -0,0 +1,70 @@
+package scheduler.testing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import scheduler.*;
+
+class Test_LatencySearch {
+
+	private static Graph graph;
+	private static String graphFile = "graphs/FIR-main-75-264.dot";
+
+	@BeforeAll
+	static void setUpBeforeClass() throws Exception {
+		graph = new Dot_reader(false).parse(graphFile);
+	}
+
+	private static LatencySearch search(LatencySearch.Goal goal, RC rc, int threads) {
+		return new LatencySearch((res, lmax) -> new FDS(res, lmax), rc, goal, threads);
+	}
+
+	/**
+	 * Any schedule meets an unlimited cost, thus the critical path length is found.
+	 */
+	@Test
+	void testLowerBound() {
+		LatencySearch.Result r = search(LatencySearch.cost(Double.MAX_VALUE), null, 4).search(graph);
+		assertNotNull(r);
+		int cp = graph.analyze(0).criticalPathLength();
+		assertEquals(cp, r.lowerBound);
+		assertEquals(cp, r.lmax);
+		assertEquals(graph.size(), r.schedule.size().intValue());
+	}
+
+	/**
+	 * A target cost reached by FDS at some bound is met at that bound or below, with the
+	 * schedule FDS delivers for the found bound.
+	 */
+	@Test
+	void testCost() {
+		int cp = graph.analyze(0).criticalPathLength();
+		double target = new FDS(null, cp + 20).schedule(graph).cost();
+		for (int threads : new int[] { 1, 3 }) {
+			LatencySearch.Result r = search(LatencySearch.cost(target), null, threads).search(graph);
+			assertNotNull(r);
+			assertTrue(r.lmax <= cp + 20, r.toString());
+			assertTrue(r.schedule.cost() <= target);
+			assertEquals(new FDS(null, r.lmax).schedule(graph).getNodes(), r.schedule.getNodes());
+			if (r.lmax > cp)
+				assertTrue(new FDS(null, r.lmax - 1).schedule(graph).cost() > target, "Smaller bound meets the cost");
+		}
+	}
+
+	@Test
+	void testResources() {
+		RC rc = new RC();
+		rc.parse("resources/homogenous_8res");
+		LatencySearch.Result r = search(LatencySearch.fits(rc), rc, 4).search(graph);
+		assertNotNull(r);
+		assertTrue(Binding.bind(r.schedule, rc).feasible());
+		assertTrue(r.schedule.length() <= r.lmax);
+	}
+
+	@Test
+	void testUnreachable() {
+		assertNull(search(LatencySearch.cost(0), null, 4).search(graph, 200));
+	}
+}
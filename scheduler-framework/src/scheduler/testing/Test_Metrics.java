@@ -0,0 +1,96 @@
+package scheduler.testing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import scheduler.*;
+
+class Test_Metrics {
+
+	private static String graphFile = "graphs/FIR-main-75-264.dot";
+	private static int lmax = 40;
+
+	@AfterEach
+	void tearDown() {
+		Metrics.setEnabled(false);
+	}
+
+	@Test
+	void testDisabled() {
+		Metrics.setEnabled(false);
+		Graph graph = new Dot_reader(false).parse(graphFile);
+		FDS fds = new FDS(null, lmax);
+		assertNotNull(fds.schedule(graph));
+		assertFalse(fds.metrics().enabled());
+		for (Metrics.Phase p : Metrics.Phase.values())
+			assertEquals(0, fds.metrics().calls(p));
+		assertEquals(0, fds.metrics().count(Metrics.Counter.ITERATIONS));
+	}
+
+	@Test
+	void testFDS() {
+		Metrics.setEnabled(true);
+		Dot_reader dr = new Dot_reader(false);
+		Graph graph = dr.parse(graphFile);
+		assertEquals(1, dr.metrics().calls(Metrics.Phase.PARSE));
+		assertEquals(graph.size(), dr.metrics().count(Metrics.Counter.NODES_VISITED));
+
+		FDS fds = new FDS(null, lmax);
+		assertNotNull(fds.schedule(graph));
+		Metrics m = fds.metrics();
+		assertTrue(m.enabled());
+		assertEquals(graph.size(), m.count(Metrics.Counter.ITERATIONS), "One iteration per planned node");
+		assertEquals(graph.size(), m.calls(Metrics.Phase.SELECTION));
+		assertEquals(graph.size() + 1, m.calls(Metrics.Phase.FORCES), "Forces are evaluated initially and per node");
+		assertTrue(m.count(Metrics.Counter.FORCE_EVALUATIONS) >= graph.size());
+		assertTrue(m.nanos(Metrics.Phase.FORCES) > 0);
+		assertEquals(1, m.calls(Metrics.Phase.PROBABILITIES));
+
+		String json = m.toJson();
+		assertTrue(json.startsWith("{\"source\":\"FDS\""), json);
+		assertTrue(json.contains("\"FORCES\":{\"ms\":"), json);
+		assertTrue(json.contains("\"ITERATIONS\":" + graph.size()), json);
+		assertFalse(json.contains("PARSE"), json);
+	}
+
+	@Test
+	void testFixed() {
+		Metrics.setEnabled(true);
+		Graph graph = new Dot_reader(false).parse(graphFile);
+		ASAP_Fixed asap = new ASAP_Fixed();
+		asap.schedule(graph, new Schedule());
+		assertEquals(1, asap.metrics().count(Metrics.Counter.SCHEDULE_CLONES));
+		assertEquals(graph.size(), asap.metrics().count(Metrics.Counter.NODES_VISITED));
+	}
+
+	@Test
+	void testFlightRecorder() throws Exception {
+		Metrics.setEnabled(true);
+		Graph graph = new Dot_reader(false).parse(graphFile);
+		Path file = Files.createTempFile("metrics", ".jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable("scheduler.Phase");
+			recording.start();
+			new FDS(null, lmax).schedule(graph);
+			recording.stop();
+			recording.dump(file);
+			List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+			long forces = events.stream()
+					.filter(e -> e.getEventType().getName().equals("scheduler.Phase")
+							&& e.getString("source").equals("FDS") && e.getString("phase").equals("FORCES"))
+					.count();
+			assertEquals(graph.size() + 1, forces);
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+}
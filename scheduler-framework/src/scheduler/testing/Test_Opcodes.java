@@ -0,0 +1,51 @@
+package scheduler.testing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import scheduler.*;
+
+class Test_Opcodes {
+
+	@Test
+	void testLookup() {
+		assertEquals(RT.OR, Opcodes.lookup("IOR"));
+		assertEquals(RT.MEM, Opcodes.lookup("ISTORE"));
+		assertEquals(RT.MEM, Opcodes.lookup("ISTORE_1"));
+		assertEquals(RT.SH, Opcodes.lookup("IUSHR"));
+		assertEquals(RT.CMP, Opcodes.lookup("IF_ICMPGE"));
+		assertEquals(RT.MEM, Opcodes.lookup("BALOAD"));
+		assertEquals(RT.ADD, Opcodes.lookup("IINC"));
+		assertEquals(RT.OTHER, Opcodes.lookup("I2S"));
+		// prefixes and extensions of mnemonics are unknown
+		assertNull(Opcodes.lookup("ISTOR"));
+		assertNull(Opcodes.lookup("ISTORE_9"));
+		assertNull(Opcodes.lookup("IMULX"));
+		assertNull(Opcodes.lookup("imul"));
+		assertNull(Opcodes.lookup(""));
+	}
+
+	@Test
+	void testClassify() {
+		assertEquals(RT.MEM, Opcodes.classify("770:ISTORE (false)"));
+		assertEquals(RT.MUL, Opcodes.classify("d23 (Ss:7) - 46:IMUL"));
+		assertEquals(RT.CMP, Opcodes.classify("12:IFLT(sce)"));
+		assertEquals(RT.ADD, Opcodes.classify("IADD"));
+		assertNull(Opcodes.classify("3:"));
+		assertEquals("FOO", Opcodes.opcode("x (Ss:1) - 3: FOO bar", 0, 21));
+	}
+
+	/**
+	 * The table agrees with RT.getRT() on plain mnemonics, except for ERROR.
+	 */
+	@Test
+	void testCompatible() {
+		String[] mnemonics = { "IMUL", "FDIV", "DADD", "LSUB", "ISHL", "LAND", "IXOR", "IALOAD", "DMA_STORE64",
+				"IFEQ", "DCMPG", "IREM", "F2I", "GETFIELD_QUICK", "PUTFIELD_QUICK", "GETFIELD_ARRAY" };
+		for (String m : mnemonics)
+			assertEquals(RT.getRT(m), Opcodes.lookup(m), m);
+		assertEquals(RT.OR, RT.getRT("ERROR"));
+		assertEquals(RT.OTHER, Opcodes.lookup("ERROR"));
+	}
+}
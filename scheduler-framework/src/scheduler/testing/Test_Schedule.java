@@ -0,0 +1,138 @@
+package scheduler.testing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import scheduler.*;
+
+class Test_Schedule {
+
+	/**
+	 * The peak usage follows additions and removals, also across the growth of the arrays.
+	 */
+	@Test
+	void testPeak() {
+		Schedule schedule = new Schedule();
+		Node a = new Node("a", RT.MEM), b = new Node("b", RT.MEM), c = new Node("c", RT.ADD);
+		schedule.add(a, new Interval(0, 3));
+		schedule.add(b, new Interval(2, 5));
+		schedule.add(c, new Interval(40, 40));
+		assertEquals(2, schedule.peak(RT.MEM));
+		assertEquals(2, schedule.occupancy(RT.MEM, 3));
+		assertEquals(1, schedule.occupancy(RT.MEM, 4));
+		assertEquals(0, schedule.occupancy(RT.MEM, 40));
+		assertEquals(2 * RT.MEM.weight + RT.ADD.weight, schedule.cost(), 1e-9);
+		assertEquals(41, schedule.length().intValue());
+
+		schedule.add(b, new Interval(4, 7));
+		assertEquals(1, schedule.peak(RT.MEM));
+		schedule.remove(c);
+		assertEquals(0, schedule.peak(RT.ADD));
+		assertFalse(schedule.costPerResource().containsKey(RT.ADD));
+		assertEquals(0, schedule.min());
+		assertEquals(7, schedule.max());
+		assertNull(schedule.nodes(40));
+	}
+
+	/**
+	 * A pipelined unit is only occupied in the first time steps of its nodes, overlapping
+	 * multiplications need a single multiplier.
+	 */
+	@Test
+	void testPipelined() {
+		Schedule schedule = new Schedule();
+		Node a = new Node("a", RT.MUL), b = new Node("b", RT.MUL), c = new Node("c", RT.MUL);
+		schedule.add(a, new Interval(0, RT.MUL.delay - 1));
+		schedule.add(b, new Interval(1, RT.MUL.delay));
+		assertEquals(1, schedule.peak(RT.MUL));
+		assertEquals(1, schedule.occupancy(RT.MUL, 1));
+		assertEquals(2, schedule.nodes(1).size());
+		assertEquals(1 + RT.MUL.initiation, schedule.busyUntil(b));
+		schedule.add(c, new Interval(1, RT.MUL.delay));
+		assertEquals(2, schedule.peak(RT.MUL));
+		schedule.remove(b);
+		assertEquals(1, schedule.peak(RT.MUL));
+		assertEquals(RT.MUL.weight, schedule.cost(), 1e-9);
+	}
+
+	/**
+	 * Nodes before the first time step and shifting keep the occupancy consistent.
+	 */
+	@Test
+	void testShift() {
+		Schedule schedule = new Schedule();
+		Node a = new Node("a", RT.ADD), b = new Node("b", RT.ADD);
+		schedule.add(a, new Interval(10, 10));
+		schedule.add(b, new Interval(-20, 10));
+		assertEquals(-20, schedule.min());
+		assertEquals(2, schedule.nodes(10).size());
+		schedule.shift(20);
+		assertEquals(0, schedule.min());
+		assertEquals(30, schedule.max());
+		assertEquals(2, schedule.occupancy(RT.ADD, 30));
+		assertEquals(new Interval(30, 30).toString(), schedule.slot(a).toString());
+		assertEquals(RT.ADD.weight * 2, schedule.cost(), 1e-9);
+	}
+
+	/**
+	 * Changes to a snapshot and to its origin must not be visible in the other one. Random
+	 * additions and removals on a family of snapshots are compared with schedules that are
+	 * built from scratch.
+	 */
+	@Test
+	void testSnapshot() {
+		Random random = new Random(42);
+		RT[] types = { RT.ADD, RT.MUL, RT.MEM };
+		Node[] pool = new Node[200];
+		for (int k = 0; k < pool.length; k++)
+			pool[k] = new Node("n" + k, types[k % types.length]);
+
+		List<Schedule> schedules = new ArrayList<Schedule>();
+		List<Map<Node, Interval>> models = new ArrayList<Map<Node, Interval>>();
+		schedules.add(new Schedule());
+		models.add(new HashMap<Node, Interval>());
+		for (int step = 0; step < 3000; step++) {
+			int s = random.nextInt(schedules.size());
+			Schedule schedule = schedules.get(s);
+			Map<Node, Interval> model = models.get(s);
+			int op = random.nextInt(10);
+			if (op == 0 && schedules.size() < 12) {
+				schedules.add(schedule.snapshot());
+				models.add(new HashMap<Node, Interval>(model));
+			} else if (op < 4 && !model.isEmpty()) {
+				Node nd = model.keySet().iterator().next();
+				schedule.remove(nd);
+				model.remove(nd);
+			} else {
+				Node nd = pool[random.nextInt(pool.length)];
+				int t = random.nextInt(300) - 100;
+				Interval i = new Interval(t, t + nd.getDelay() - 1);
+				schedule.add(nd, i);
+				model.put(nd, i);
+			}
+		}
+
+		for (int s = 0; s < schedules.size(); s++) {
+			Schedule schedule = schedules.get(s);
+			Schedule reference = new Schedule();
+			for (Map.Entry<Node, Interval> e : models.get(s).entrySet())
+				reference.add(e.getKey(), e.getValue());
+			assertEquals(models.get(s), schedule.getNodes());
+			assertEquals(reference.cost(), schedule.cost(), 1e-9);
+			assertEquals(reference.min(), schedule.min());
+			assertEquals(reference.max(), schedule.max());
+			for (int t = reference.min(); t <= reference.max(); t++) {
+				assertEquals(reference.nodes(t), schedule.nodes(t), "Nodes at " + t);
+				for (RT rt : types)
+					assertEquals(reference.occupancy(rt, t), schedule.occupancy(rt, t));
+			}
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package scheduler.testing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import scheduler.*;
+
+class Test_SlackAnalysis {
+
+	private static Graph graph;
+	private static String graphFile = "graphs/lectureExample.dot";
+	private static int lmax = 20;
+
+	@BeforeAll
+	static void setUpBeforeClass() throws Exception {
+		graph = new Dot_reader(false).parse(graphFile);
+	}
+
+	@Test
+	void testBoundsMatchSchedules() {
+		SlackAnalysis sa = graph.analyze(lmax);
+		Schedule asap = new ASAP_Fixed().schedule(graph, new Schedule());
+		Schedule alap = new ALAP_Fixed(lmax).schedule(graph, new Schedule());
+
+		assertEquals(asap.length().intValue(), sa.criticalPathLength());
+		assertTrue(sa.feasible());
+		for (Node node : graph) {
+			assertEquals(asap.slot(node).lbound.intValue(), sa.earliest(node));
+			assertEquals(alap.slot(node).lbound.intValue(), sa.latest(node));
+			assertEquals(sa.latest(node) - sa.earliest(node), sa.slack(node));
+		}
+	}
+
+	@Test
+	void testCriticalPaths() {
+		SlackAnalysis sa = graph.analyze(0);
+		List<SlackAnalysis.Path> paths = sa.criticalPaths(5);
+
+		assertEquals(sa.criticalPathLength(), paths.get(0).length, "First path must be a critical path");
+		for (int i = 0; i < paths.size(); i++) {
+			SlackAnalysis.Path path = paths.get(i);
+			if (i > 0)
+				assertTrue(paths.get(i - 1).length >= path.length, "Paths must be sorted by length");
+			int length = 0;
+			for (int j = 0; j < path.nodes.size(); j++) {
+				Node node = path.nodes.get(j);
+				length += node.getDelay();
+				if (j > 0)
+					assertTrue(path.nodes.get(j - 1).successors().contains(node), "Path must follow the edges");
+			}
+			assertEquals(length, path.length);
+			assertTrue(path.nodes.get(0).root());
+			assertTrue(path.nodes.get(path.nodes.size() - 1).leaf());
+		}
+		for (Node node : paths.get(0).nodes) {
+			assertTrue(sa.critical(node));
+			assertEquals(0, sa.slack(node), "Critical nodes have no slack without a latency bound");
+		}
+	}
+
+}
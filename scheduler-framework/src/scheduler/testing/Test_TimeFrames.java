@@ -0,0 +1,67 @@
+package scheduler.testing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import scheduler.*;
+
+class Test_TimeFrames {
+
+	private static int lmax = 30;
+
+	@Test
+	void testLectureExample() {
+		checkAgainstFixedSchedulers("graphs/lectureExample.dot");
+	}
+
+	@Test
+	void testFIR() {
+		checkAgainstFixedSchedulers("graphs/FIR-main-75-264.dot");
+	}
+
+	@Test
+	void testConflict() {
+		Graph graph = new Dot_reader(false).parse("graphs/testCyclic.dot");
+		TimeFrames frames = new TimeFrames(graph, 12);
+		Node n2 = graph.get(new Node("N2_MUL"));
+		Node n7 = graph.get(new Node("N7_ADD"));
+
+		assertTrue(frames.fix(n7, 9));
+		assertEquals(1, frames.alap(n2), "Fixed successor must pull the ALAP frame");
+		assertFalse(frames.fix(n2, 2), "Fixing a node behind a fixed successor must fail");
+		assertEquals(1, frames.asap(n2), "Frames must be unchanged after a failed fix");
+		assertEquals(1, frames.alap(n2), "Frames must be unchanged after a failed fix");
+		assertFalse(frames.isFixed(n2));
+	}
+
+	/**
+	 * Fixes the nodes one after another in the middle of their frames and compares the
+	 * frames to the ones of ASAP_Fixed and ALAP_Fixed after each step.
+	 */
+	void checkAgainstFixedSchedulers(String graphFile) {
+		Graph graph = new Dot_reader(false).parse(graphFile);
+		TimeFrames frames = new TimeFrames(graph, lmax);
+		Schedule partialSchedule = new Schedule();
+
+		for (Node node : frames.nodes()) {
+			compare(graph, frames, partialSchedule);
+
+			int start = (frames.asap(node) + frames.alap(node)) / 2;
+			assertTrue(frames.fix(node, start));
+			partialSchedule.add(node, new Interval(start, start + node.getDelay() - 1));
+		}
+		compare(graph, frames, partialSchedule);
+	}
+
+	void compare(Graph graph, TimeFrames frames, Schedule partialSchedule) {
+		Schedule asap = new ASAP_Fixed().schedule(graph, partialSchedule);
+		Schedule alap = new ALAP_Fixed(lmax).schedule(graph, partialSchedule);
+		for (Node node : graph) {
+			assertEquals(asap.slot(node).lbound.intValue(), frames.asap(node), "ASAP frame differs for " + node);
+			assertEquals(alap.slot(node).lbound.intValue(), frames.alap(node), "ALAP frame differs for " + node);
+			assertEquals(new Interval(asap.slot(node).lbound, alap.slot(node).ubound), frames.mobility(node));
+		}
+	}
+
+}
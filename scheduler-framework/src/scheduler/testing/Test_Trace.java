@@ -0,0 +1,65 @@
+package scheduler.testing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import scheduler.*;
+
+class Test_Trace {
+
+	private static String graphFile = "graphs/FIR-main-75-264.dot";
+
+	@AfterEach
+	void tearDown() {
+		Trace.reset();
+		Trace.setCapacity(4096);
+	}
+
+	@Test
+	void testOff() {
+		Trace.reset();
+		new ASAP().schedule(new Dot_reader(false).parse(graphFile));
+		assertTrue(Trace.entries().isEmpty());
+		assertFalse(Trace.on(Trace.Component.ASAP, Trace.Level.ERROR));
+	}
+
+	@Test
+	void testLevels() {
+		Trace.reset();
+		Trace.configure("FDS:DEBUG,ASAP:INFO");
+		assertTrue(Trace.on(Trace.Component.FDS, Trace.Level.DEBUG));
+		assertTrue(Trace.on(Trace.Component.ASAP, Trace.Level.WARN));
+		assertFalse(Trace.on(Trace.Component.ASAP, Trace.Level.DEBUG));
+		assertFalse(Trace.on(Trace.Component.LIST));
+
+		Graph graph = new Dot_reader(false).parse(graphFile);
+		new ASAP().schedule(graph);
+		assertTrue(Trace.entries().isEmpty(), "ASAP traces its queue at DEBUG only");
+		new FDS(null, 40).schedule(graph);
+		List<String> entries = Trace.entries();
+		assertEquals(graph.size(), entries.size(), "One entry per planned node");
+		assertTrue(entries.get(0).contains("DEBUG FDS"), entries.get(0));
+
+		assertThrows(IllegalArgumentException.class, () -> Trace.configure("FDS"));
+		assertThrows(IllegalArgumentException.class, () -> Trace.configure("NONE:DEBUG"));
+	}
+
+	@Test
+	void testRing() {
+		Trace.reset();
+		Trace.setCapacity(8);
+		Trace.setLevel(Trace.Component.ASAP, Trace.Level.DEBUG);
+		for (int i = 0; i < 20; i++)
+			Trace.log(Trace.Component.ASAP, Trace.Level.DEBUG, "entry %d", i);
+		List<String> entries = Trace.entries();
+		assertEquals(8, entries.size());
+		assertTrue(entries.get(0).endsWith("entry 12"), entries.get(0));
+		assertTrue(entries.get(7).endsWith("entry 19"), entries.get(7));
+		Trace.clear();
+		assertTrue(Trace.entries().isEmpty());
+	}
+}